@@ -0,0 +1,51 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compara el parser por tokens con el anterior basado en readTree sobre respuestas de 10 a 50 KB.
+ * Con -prof gc se ve ademas la diferencia de bytes asignados por operacion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationParserBenchmark {
+
+    @Param({"10240", "25600", "51200"})
+    private int payloadBytes;
+
+    private String payload;
+    private RecommendationResponseParser streamingParser;
+    private TreeRecommendationParser treeParser;
+
+    @Setup
+    public void setUp() {
+        payload = RecommendationPayloads.geminiResponse(payloadBytes);
+        // Las cargas usan recipeId null, asi que el validador de ids nunca se consulta.
+        streamingParser = new RecommendationResponseParser(null, new RecommendationMetrics(new SimpleMeterRegistry()));
+        treeParser = new TreeRecommendationParser();
+    }
+
+    @Benchmark
+    public List<RecommendationResponse> streamingTokens() {
+        return streamingParser.parse(payload);
+    }
+
+    @Benchmark
+    public List<RecommendationResponse> jsonNodeTree() throws JsonProcessingException {
+        return treeParser.parse(payload);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Genera respuestas de Gemini realistas (tres recetas dentro de una cerca ```json) del tamano pedido.
+ * El tamano se alcanza alargando las instrucciones, que es lo que crece en las respuestas reales.
+ * Tambien arma despensas y textos de instrucciones para los benchmarks del prompt y de truncate.
+ */
+final class RecommendationPayloads {
+
+    private static final String STEP =
+        "Calienta una sarten amplia a fuego medio, agrega un chorrito de aceite de oliva y sofrie la cebolla "
+            + "picada con una pizca de sal hasta que este transparente; incorpora el ajo y remueve un minuto mas. ";
+
+    private static final String[] NAMES = {
+        "arroz", "zanahoria", "cebolla", "ajo", "huevo", "aceite de oliva", "tomate", "pimiento rojo",
+        "pechuga de pollo", "leche", "queso fresco", "limon", "papas", "lentejas", "harina de trigo", "atun"
+    };
+    private static final String[] CATEGORIES = {
+        "Cereales", "Verduras", "Verduras", "Verduras", "Huevos", "Aceites", "Verduras", "Verduras",
+        "Carnes", "Lacteos", "Lacteos", "Frutas", "Verduras", "Legumbres", "Cereales", "Pescados"
+    };
+    private static final String[] UNITS = {"g", "unidad", "unidad", "diente", "unidad", "ml", "kg", "unidad",
+        "g", "l", "g", "unidad", "kg", "g", "kg", "lata"};
+
+    private RecommendationPayloads() {
+    }
+
+    static String geminiResponse(int targetBytes) {
+        int instructionsLength = Math.max(STEP.length(), (targetBytes - 3 * 900) / 3);
+        StringBuilder instructions = new StringBuilder(instructionsLength + STEP.length());
+        int step = 1;
+        while (instructions.length() < instructionsLength) {
+            instructions.append("Paso ").append(step++).append(": ").append(STEP);
+        }
+
+        StringBuilder json = new StringBuilder(targetBytes + 64).append("```json\n[\n");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                json.append(",\n");
+            }
+            json.append("  {\"recipeId\": null, \"title\": \"Arroz salteado con verduras ").append(i + 1)
+                .append("\", \"description\": \"Un plato rapido que aprovecha las verduras de la despensa y el arroz del dia anterior.\"")
+                .append(", \"instructions\": \"").append(instructions)
+                .append("\", \"prepTimeMinutes\": ").append(20 + i * 5)
+                .append(", \"difficulty\": \"Facil\", \"imageUrl\": null, \"matchScore\": 0.").append(9 - i)
+                .append(", \"missingIngredients\": [\"salsa de soya\", \"jengibre\"]")
+                .append(", \"ingredients\": [")
+                .append("{\"name\": \"arroz\", \"quantity\": 300, \"unit\": \"g\"}, ")
+                .append("{\"name\": \"zanahoria\", \"quantity\": 2, \"unit\": \"unidad\"}, ")
+                .append("{\"name\": \"cebolla\", \"quantity\": 1, \"unit\": \"unidad\"}, ")
+                .append("{\"name\": \"ajo\", \"quantity\": 2, \"unit\": \"diente\"}, ")
+                .append("{\"name\": \"huevo\", \"quantity\": 2, \"unit\": \"unidad\"}, ")
+                .append("{\"name\": \"aceite de oliva\", \"quantity\": 15, \"unit\": \"ml\"}, ")
+                .append("{\"name\": \"salsa de soya\", \"quantity\": null, \"unit\": \"al gusto\"}")
+                .append("]}");
+        }
+        return json.append("\n]\n```").toString();
+    }
+
+    /**
+     * Despensa de size entradas; los nombres se repiten con variaciones de mayusculas, acentos y
+     * plural, como ocurre en despensas reales, para ejercitar la deduplicacion.
+     */
+    static List<PantryEntry> pantry(int size) {
+        List<PantryEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int base = i % NAMES.length;
+            int variant = i / NAMES.length;
+            String name = switch (variant % 3) {
+                case 0 -> NAMES[base];
+                case 1 -> NAMES[base].toUpperCase() + "s";
+                default -> NAMES[base] + " " + variant;
+            };
+            entries.add(new PantryEntry((long) i + 1, name, (double) (1 + i % 7) * 100, UNITS[base], CATEGORIES[base]));
+        }
+        return entries;
+    }
+
+    /**
+     * Instrucciones de al menos targetBytes bytes UTF-8; accented agrega acentos, enies y emojis.
+     */
+    static String instructions(int targetBytes, boolean accented) {
+        String step = accented
+            ? "Saltea el ñame y la cebolla en la sartén a fuego medio; añade el ají, el limón y el jengibre 🌶️. "
+            : STEP;
+        StringBuilder text = new StringBuilder(targetBytes + step.length());
+        int stepNumber = 1;
+        while (text.toString().getBytes(StandardCharsets.UTF_8).length < targetBytes) {
+            for (int i = 0; i < 50; i++) {
+                text.append("Paso ").append(stepNumber++).append(": ").append(step);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mide la construccion del prompt (deduplicacion, prioridad y recorte por presupuesto de tokens)
+ * y la huella de la despensa que usa la cache, para despensas de 5 a 500 ingredientes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationPromptBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int pantrySize;
+
+    private List<PantryEntry> pantry;
+    private RecommendationPromptBuilder promptBuilder;
+
+    @Setup
+    public void setUp() {
+        pantry = RecommendationPayloads.pantry(pantrySize);
+        promptBuilder = new RecommendationPromptBuilder(
+            new RecommendationMetrics(new SimpleMeterRegistry()),
+            1000,
+            "verdura,fruta,hortaliza,vegetal,carne,pescado,marisco,lacteo,huevo,fiambre"
+        );
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return promptBuilder.build(pantry);
+    }
+
+    @Benchmark
+    public String buildSinglePrompt() {
+        return promptBuilder.buildSingle(pantry, 1, 4);
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return PantryFingerprint.of(pantry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compara truncate de una pasada con el anterior, que recodificaba el texto por cada longitud
+ * candidata, sobre instrucciones que exceden MAX_INSTRUCTIONS_LENGTH. Con texto acentuado el
+ * anterior itera miles de veces, cada una codificando ~60 KB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationTextBenchmark {
+
+    @Param({"61440", "81920"})
+    private int instructionsBytes;
+
+    @Param({"false", "true"})
+    private boolean accented;
+
+    private String instructions;
+
+    @Setup
+    public void setUp() {
+        instructions = RecommendationPayloads.instructions(instructionsBytes, accented);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return RecommendationText.truncate(instructions, RecommendationText.MAX_INSTRUCTIONS_LENGTH);
+    }
+
+    @Benchmark
+    public String reencodePerCandidate() {
+        return ReencodingTruncate.truncate(instructions, RecommendationText.MAX_INSTRUCTIONS_LENGTH);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.util.StringUtils;
+
+/**
+ * Copia del truncate anterior, que recodificaba el texto por cada longitud candidata, conservada
+ * solo como linea base de RecommendationTextBenchmark.
+ */
+final class ReencodingTruncate {
+
+    private ReencodingTruncate() {
+    }
+
+    static String truncate(String value, int maxLength) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        String trimmed = value.trim();
+        byte[] bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxLength) {
+            return trimmed;
+        }
+        int end = Math.min(trimmed.length(), maxLength);
+        while (end > 0) {
+            String candidate = trimmed.substring(0, end);
+            if (candidate.getBytes(StandardCharsets.UTF_8).length <= maxLength) {
+                return candidate;
+            }
+            end--;
+        }
+        return trimmed.substring(0, Math.min(trimmed.length(), maxLength));
+    }
+}
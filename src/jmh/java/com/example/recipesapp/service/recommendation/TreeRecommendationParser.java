@@ -0,0 +1,82 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.util.StringUtils;
+
+/**
+ * Copia del parser anterior basado en readTree, conservada solo como linea base de los benchmarks.
+ * No valida recipeId contra la base de datos: las cargas de prueba usan recipeId null.
+ */
+class TreeRecommendationParser {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    List<RecommendationResponse> parse(String rawText) throws JsonProcessingException {
+        JsonNode arrayNode = objectMapper.readTree(sanitizeJsonBlock(rawText));
+        List<RecommendationResponse> recommendations = new ArrayList<>();
+        for (JsonNode node : arrayNode) {
+            recommendations.add(toRecommendation(node));
+        }
+        return recommendations;
+    }
+
+    private String sanitizeJsonBlock(String raw) {
+        String trimmed = raw.trim();
+        if (trimmed.startsWith("```")) {
+            int firstLineBreak = trimmed.indexOf('\n');
+            int lastFence = trimmed.lastIndexOf("```");
+            if (firstLineBreak > 0 && lastFence > firstLineBreak) {
+                trimmed = trimmed.substring(firstLineBreak + 1, lastFence).trim();
+            }
+        }
+        return trimmed;
+    }
+
+    private RecommendationResponse toRecommendation(JsonNode node) {
+        String title = node.path("title").asText("Receta sugerida");
+        double score = node.path("matchScore").asDouble(0.5);
+        Long recipeId = node.hasNonNull("recipeId") ? node.path("recipeId").asLong() : null;
+        String description = node.path("description").asText(null);
+        String instructions = node.path("instructions").asText(null);
+        Integer prepTime = node.hasNonNull("prepTimeMinutes") ? node.path("prepTimeMinutes").asInt() : null;
+        String difficulty = node.path("difficulty").asText(null);
+        String image = node.path("imageUrl").asText(null);
+
+        List<String> missing = new ArrayList<>();
+        node.path("missingIngredients").forEach(m -> {
+            String value = m.asText();
+            if (StringUtils.hasText(value)) {
+                missing.add(value.trim());
+            }
+        });
+
+        List<RecommendationIngredientDto> ingredients = new ArrayList<>();
+        for (JsonNode ingredientNode : node.path("ingredients")) {
+            String name = ingredientNode.path("name").asText(null);
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            Double quantity = ingredientNode.hasNonNull("quantity") ? ingredientNode.path("quantity").asDouble() : null;
+            ingredients.add(new RecommendationIngredientDto(name.trim(), quantity, ingredientNode.path("unit").asText(null)));
+        }
+
+        return new RecommendationResponse(
+            recipeId,
+            RecommendationText.truncate(title, RecommendationText.MAX_TITLE_LENGTH),
+            RecommendationText.truncate(description, RecommendationText.MAX_DESCRIPTION_LENGTH),
+            RecommendationText.truncate(instructions, RecommendationText.MAX_INSTRUCTIONS_LENGTH),
+            prepTime,
+            difficulty,
+            image,
+            score,
+            missing,
+            ingredients
+        );
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,6 +15,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,6 +30,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
  * - Deshabilita CSRF, form login y HTTP Basic (SPA/JWT no los necesita).
  * - Permite libremente los endpoints de autenticación y las lecturas de recetas,
  *   mientras que el resto requiere que exista un SecurityContext en la sesión.
+ * - Los endpoints de Actuator (health, metrics, prometheus) no usan sesión: solo se
+ *   sirven a las redes de app.management.allowed-networks (el scraper de Prometheus).
  */
 
 @Configuration
@@ -35,12 +39,20 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     private final List<String> allowedOrigins;
+    private final List<String> managementNetworks;
 
-    public SecurityConfig(@Value("${app.cors.allowed-origins:http://localhost:5173}") String allowedOrigins) {
+    public SecurityConfig(
+        @Value("${app.cors.allowed-origins:http://localhost:5173}") String allowedOrigins,
+        @Value("${app.management.allowed-networks:127.0.0.1/32,::1/128}") String managementNetworks
+    ) {
         this.allowedOrigins = Arrays.stream(allowedOrigins.split(","))
             .map(String::trim)
             .filter(origin -> !origin.isEmpty())
             .collect(Collectors.toList());
+        this.managementNetworks = Arrays.stream(managementNetworks.split(","))
+            .map(String::trim)
+            .filter(network -> !network.isEmpty())
+            .collect(Collectors.toList());
     }
 
     /**
@@ -68,9 +80,11 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
 
             // Autorización por rutas:
+            // - Actuator solo desde las redes de gestión, sin sesión.
             // - Estas rutas de auth son públicas.
             // - Cualquier otra requiere estar autenticado.
             .authorizeHttpRequests(auth -> auth
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).access(fromManagementNetworks())
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/recipes", "/api/recipes/**").permitAll()
@@ -86,6 +100,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Autoriza por IP de origen (hasIpAddress) a las redes de gestión; sin ninguna configurada
+     * se niega todo. Detras de un proxy la IP es la del proxy salvo que se configure
+     * server.forward-headers-strategy.
+     */
+    private WebExpressionAuthorizationManager fromManagementNetworks() {
+        String expression = managementNetworks.isEmpty()
+            ? "denyAll"
+            : managementNetworks.stream()
+                .map(network -> "hasIpAddress('" + network + "')")
+                .collect(Collectors.joining(" or "));
+        return new WebExpressionAuthorizationManager(expression);
+    }
+
     /**
      * Configura CORS tomando los orígenes de app.cors.allowed-origins (separados por coma).
      */
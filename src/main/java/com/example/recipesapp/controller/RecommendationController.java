@@ -6,16 +6,25 @@ import com.example.recipesapp.dto.RecommendationJobResponse;
 import com.example.recipesapp.service.job.RecommendationJobService;
 import com.example.recipesapp.service.job.RecommendationJobService.JobResult;
 import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.recommendation.RecommendationStreamService;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Exposicion REST para obtener recomendaciones alimentadas por IA.
@@ -25,15 +34,21 @@ import org.springframework.web.bind.annotation.RestController;
 @CrossOrigin(origins = {"http://localhost:5173", "https://recipes-app-front.vercel.app"}, allowCredentials = "true")
 public class RecommendationController {
 
+    // Margen sobre la espera del long-poll antes de que el contenedor corte la peticion asincrona.
+    private static final Duration LONG_POLL_GRACE = Duration.ofSeconds(5);
+
     private final RecommendationService recommendationService;
     private final RecommendationJobService recommendationJobService;
+    private final RecommendationStreamService recommendationStreamService;
 
     public RecommendationController(
         RecommendationService recommendationService,
-        RecommendationJobService recommendationJobService
+        RecommendationJobService recommendationJobService,
+        RecommendationStreamService recommendationStreamService
     ) {
         this.recommendationService = recommendationService;
         this.recommendationJobService = recommendationJobService;
+        this.recommendationStreamService = recommendationStreamService;
     }
 
     @GetMapping
@@ -41,36 +56,72 @@ public class RecommendationController {
         return ResponseEntity.ok(recommendationService.generateRecommendationsForCurrentUser());
     }
 
+    /**
+     * Server-Sent Events: un evento "recommendation" por receta apenas la IA la termina, luego "done" o "error".
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendations() {
+        return recommendationStreamService.openStream(recommendationService.loadPantrySnapshotForCurrentUser());
+    }
+
     @PostMapping("/save")
-    public ResponseEntity<?> saveRecommendation(@RequestBody SaveRecommendationRequest request) {
+    public ResponseEntity<?> saveRecommendation(
+        @RequestBody SaveRecommendationRequest request,
+        @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
         return ResponseEntity.status(HttpStatus.CREATED)
-            .body(recommendationService.saveRecommendation(request));
+            .body(recommendationService.saveRecommendation(request, idempotencyKey));
     }
 
     @PostMapping("/jobs")
     public ResponseEntity<RecommendationJobResponse> createJob() {
         JobResult job = recommendationJobService.createJob();
-        RecommendationJobResponse response = new RecommendationJobResponse(
-            job.getJobId(),
-            job.getStatus(),
-            job.getRecommendations(),
-            job.getErrorMessage()
-        );
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(job));
     }
 
     @GetMapping("/jobs/{jobId}")
     public ResponseEntity<RecommendationJobResponse> getJob(@PathVariable String jobId) {
-        JobResult job = recommendationJobService.getJob(jobId);
+        return toResponseEntity(recommendationJobService.getJob(jobId));
+    }
+
+    /**
+     * Long-poll: con ?waitMs=N la respuesta se retiene (sin ocupar un hilo del servlet) hasta que el
+     * job termina o pasan N ms, y entonces devuelve el estado actual, posiblemente aun PENDING.
+     */
+    @GetMapping(path = "/jobs/{jobId}", params = "waitMs")
+    public DeferredResult<ResponseEntity<RecommendationJobResponse>> awaitJob(
+        @PathVariable String jobId,
+        @RequestParam long waitMs
+    ) {
+        Duration wait = recommendationJobService.longPollWait(waitMs);
+        DeferredResult<ResponseEntity<RecommendationJobResponse>> result =
+            new DeferredResult<>(wait.plus(LONG_POLL_GRACE).toMillis());
+        CompletableFuture<JobResult> job = recommendationJobService.awaitJob(jobId, wait);
+        job.whenComplete((completed, error) -> {
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.setResult(toResponseEntity(completed));
+            }
+        });
+        // Si el cliente se desconecta se deja de esperar.
+        result.onCompletion(() -> job.cancel(false));
+        return result;
+    }
+
+    private ResponseEntity<RecommendationJobResponse> toResponseEntity(JobResult job) {
         if (job == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        RecommendationJobResponse response = new RecommendationJobResponse(
+        return ResponseEntity.ok(toResponse(job));
+    }
+
+    private RecommendationJobResponse toResponse(JobResult job) {
+        return new RecommendationJobResponse(
             job.getJobId(),
             job.getStatus(),
             job.getRecommendations(),
             job.getErrorMessage()
         );
-        return ResponseEntity.ok(response);
     }
 }
@@ -4,13 +4,16 @@ import com.example.recipesapp.dto.MessageResponse;
 import com.example.recipesapp.exception.AccessDeniedException;
 import com.example.recipesapp.exception.AiServiceException;
 import com.example.recipesapp.exception.DuplicateResourceException;
+import com.example.recipesapp.exception.ResourceExpiredException;
 import com.example.recipesapp.exception.ResourceNotFoundException;
+import com.example.recipesapp.exception.TooManyRequestsException;
 import com.example.recipesapp.exception.UnauthorizedException;
 import java.util.HashMap;
 import java.util.Map;
 import org.hibernate.exception.DataException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -32,6 +35,12 @@ public class RestExceptionHandler {
             .body(new MessageResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(ResourceExpiredException.class)
+    public ResponseEntity<MessageResponse> handleExpired(ResourceExpiredException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+            .body(new MessageResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(DuplicateResourceException.class)
     public ResponseEntity<MessageResponse> handleConflict(DuplicateResourceException ex) {
         return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -56,6 +65,13 @@ public class RestExceptionHandler {
             .body(new MessageResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<MessageResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(new MessageResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(DataException.class)
     public ResponseEntity<MessageResponse> handleDataException(DataException ex) {
         LOGGER.error("Database error processing request", ex);
@@ -1,11 +1,11 @@
 package com.example.recipesapp.dto;
 
-import com.example.recipesapp.service.job.RecommendationJobService.Status;
+import com.example.recipesapp.model.RecommendationJobStatus;
 import java.util.List;
 
 public record RecommendationJobResponse(
     String jobId,
-    Status status,
+    RecommendationJobStatus status,
     List<RecommendationResponse> recommendations,
     String errorMessage
 ) {
@@ -4,6 +4,7 @@ import java.util.List;
 
 /**
  * DTO devuelto por el motor de recomendación.
+ * fallback indica que la receta viene del recomendador local porque la IA fallo o no respondio a tiempo.
  */
 public record RecommendationResponse(
     Long recipeId,
@@ -15,6 +16,28 @@ public record RecommendationResponse(
     String imageUrl,
     double matchScore,
     List<String> missingIngredients,
-    List<RecommendationIngredientDto> ingredients
+    List<RecommendationIngredientDto> ingredients,
+    boolean fallback
 ) {
+
+    public RecommendationResponse(
+        Long recipeId,
+        String title,
+        String description,
+        String instructions,
+        Integer prepTimeMinutes,
+        String difficulty,
+        String imageUrl,
+        double matchScore,
+        List<String> missingIngredients,
+        List<RecommendationIngredientDto> ingredients
+    ) {
+        this(recipeId, title, description, instructions, prepTimeMinutes, difficulty, imageUrl, matchScore,
+            missingIngredients, ingredients, false);
+    }
+
+    public RecommendationResponse asFallback() {
+        return new RecommendationResponse(recipeId, title, description, instructions, prepTimeMinutes, difficulty,
+            imageUrl, matchScore, missingIngredients, ingredients, true);
+    }
 }
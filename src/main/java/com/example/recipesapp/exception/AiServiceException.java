@@ -2,15 +2,33 @@ package com.example.recipesapp.exception;
 
 /**
  * Excepción lanzada cuando la integración con el motor de IA falla o no está disponible.
+ * Si el proveedor respondio con un error HTTP se conserva su codigo (0 si no hubo respuesta).
  */
 public class AiServiceException extends RuntimeException {
 
+    private final int statusCode;
+
     public AiServiceException(String message) {
-        super(message);
+        this(message, 0, null);
     }
 
     public AiServiceException(String message, Throwable cause) {
+        this(message, 0, cause);
+    }
+
+    public AiServiceException(String message, int statusCode, Throwable cause) {
         super(message, cause);
+        this.statusCode = statusCode;
     }
-}
 
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Solo 429 y 5xx son transitorios; el resto de errores 4xx se repetirian igual.
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
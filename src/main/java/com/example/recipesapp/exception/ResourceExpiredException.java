@@ -0,0 +1,11 @@
+package com.example.recipesapp.exception;
+
+/**
+ * Indica que el recurso existio pero ya fue descartado (p. ej. un job expirado); se traduce a HTTP 410.
+ */
+public class ResourceExpiredException extends RuntimeException {
+
+    public ResourceExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.recipesapp.exception;
+
+/**
+ * Se lanza cuando el servidor esta saturado o el cliente supero su cuota; se traduce a HTTP 429.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.recipesapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Idempotency-Key recibida al guardar una recomendacion y la receta que produjo. El id combina
+ * usuario y clave, asi dos usuarios pueden enviar la misma clave sin pisarse.
+ */
+@Entity
+@Table(
+    name = "idempotency_keys",
+    indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+)
+public class IdempotencyKey {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    @Id
+    @Column(length = 128)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "recipe_id", nullable = false)
+    private Long recipeId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(Long userId, String key, Long recipeId, Instant createdAt) {
+        this.id = idFor(userId, key);
+        this.userId = userId;
+        this.recipeId = recipeId;
+        this.createdAt = createdAt;
+    }
+
+    public static String idFor(Long userId, String key) {
+        return userId + ":" + key;
+    }
+
+    public void reassign(Long recipeId, Instant createdAt) {
+        this.recipeId = recipeId;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getRecipeId() {
+        return recipeId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
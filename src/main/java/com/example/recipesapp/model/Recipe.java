@@ -9,6 +9,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -18,7 +19,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "recipes")
+@Table(name = "recipes", indexes = @Index(name = "idx_recipes_content_hash", columnList = "content_hash", unique = true))
 public class Recipe {
 
     @Id
@@ -45,6 +46,11 @@ public class Recipe {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Huella del contenido de una receta guardada desde una recomendacion; null si se edito a mano.
+    // Unica: dos guardados simultaneos del mismo contenido no pueden crear dos recetas.
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<RecipeIngredient> ingredients = new HashSet<>();
 
@@ -125,6 +131,14 @@ public class Recipe {
         this.imageUrl = imageUrl;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Set<RecipeIngredient> getIngredients() {
         return ingredients;
     }
@@ -0,0 +1,148 @@
+package com.example.recipesapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Job de recomendacion persistido para la cola compartida entre instancias.
+ * Un job PENDING con lease vigente esta siendo procesado por leaseOwner; si el lease vence
+ * (el nodo cayo) otro worker lo reclama. La despensa y el resultado se guardan como JSON comprimido.
+ */
+@Entity
+@Table(
+    name = "recommendation_jobs",
+    indexes = {
+        @Index(name = "idx_recommendation_jobs_claim", columnList = "status, lease_expires_at, created_at"),
+        @Index(name = "idx_recommendation_jobs_coalescing", columnList = "coalescing_key, status")
+    }
+)
+public class RecommendationJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "coalescing_key", length = 100, nullable = false)
+    private String coalescingKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private RecommendationJobStatus status;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB", nullable = false)
+    private byte[] pantry;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] result;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private boolean expired;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    public RecommendationJob() {
+    }
+
+    public RecommendationJob(String id, Long userId, String coalescingKey, byte[] pantry, Instant createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.coalescingKey = coalescingKey;
+        this.pantry = pantry;
+        this.createdAt = createdAt;
+        this.status = RecommendationJobStatus.PENDING;
+    }
+
+    public void claim(String owner, Instant leaseExpiresAt) {
+        this.leaseOwner = owner;
+        this.leaseExpiresAt = leaseExpiresAt;
+        this.attempts++;
+    }
+
+    public void fail(String errorMessage, Instant completedAt) {
+        this.status = RecommendationJobStatus.ERROR;
+        this.errorMessage = errorMessage;
+        this.completedAt = completedAt;
+        this.leaseOwner = null;
+        this.leaseExpiresAt = null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getCoalescingKey() {
+        return coalescingKey;
+    }
+
+    public RecommendationJobStatus getStatus() {
+        return status;
+    }
+
+    public byte[] getPantry() {
+        return pantry;
+    }
+
+    public byte[] getResult() {
+        return result;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.recipesapp.model;
+
+/**
+ * Estado de un job de recomendacion: lo comparten la cola persistente, el store en memoria y la API.
+ */
+public enum RecommendationJobStatus {
+    PENDING,
+    DONE,
+    ERROR
+}
@@ -2,9 +2,12 @@ package com.example.recipesapp.repository;
 
 import com.example.recipesapp.model.Ingredient;
 import com.example.recipesapp.model.IngredientCategory;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -12,10 +15,16 @@ import org.springframework.stereotype.Repository;
  * Provides catalog queries grouped by category and uniqueness lookups.
  */
 @Repository
-public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
+public interface IngredientRepository extends JpaRepository<Ingredient, Long>, IngredientRepositoryCustom {
 
     Optional<Ingredient> findByIngredientNameIgnoreCase(String ingredientName);
 
+    /**
+     * Busca varios ingredientes en una consulta; lowerCaseNames debe venir en minusculas.
+     */
+    @Query("select i from Ingredient i where lower(i.ingredientName) in :lowerCaseNames")
+    List<Ingredient> findAllByLowerCaseNameIn(@Param("lowerCaseNames") Collection<String> lowerCaseNames);
+
     boolean existsByIngredientNameIgnoreCase(String ingredientName);
 
     List<Ingredient> findByCategory(IngredientCategory category);
@@ -0,0 +1,15 @@
+package com.example.recipesapp.repository;
+
+import java.util.Collection;
+
+/**
+ * Operaciones masivas sobre ingredientes que Spring Data no resuelve en una sola ida a la base.
+ */
+public interface IngredientRepositoryCustom {
+
+    /**
+     * Inserta los ingredientes en un unico batch JDBC. Los ids IDENTITY impiden que Hibernate
+     * agrupe los INSERT, por eso se hace fuera de la sesion; los ingredientes se leen despues.
+     */
+    void insertAll(Collection<String> ingredientNames, Long categoryId);
+}
@@ -0,0 +1,30 @@
+package com.example.recipesapp.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Implementacion JDBC de IngredientRepositoryCustom. Comparte la conexion de la transaccion JPA en curso.
+ */
+class IngredientRepositoryCustomImpl implements IngredientRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO ingredients (ingredient_name, category_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    IngredientRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(Collection<String> ingredientNames, Long categoryId) {
+        if (ingredientNames.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new ArrayList<>(ingredientNames), ingredientNames.size(), (statement, name) -> {
+            statement.setString(1, name);
+            statement.setLong(2, categoryId);
+        });
+    }
+}
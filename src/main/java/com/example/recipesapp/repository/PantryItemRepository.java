@@ -6,6 +6,7 @@ import com.example.recipesapp.model.PantryItemId;
 import com.example.recipesapp.model.User;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +18,16 @@ public interface PantryItemRepository extends JpaRepository<PantryItem, PantryIt
 
     List<PantryItem> findByUser(User user);
 
+    /**
+     * Igual que findByUser pero trae los ingredientes y sus categorias en la misma consulta
+     * (evita N+1 al armar el prompt).
+     */
+    @EntityGraph(attributePaths = {"ingredient", "ingredient.category"})
+    List<PantryItem> findWithIngredientByUser(User user);
+
+    @EntityGraph(attributePaths = {"ingredient", "ingredient.category"})
+    List<PantryItem> findWithIngredientByUserId(Long userId);
+
     Optional<PantryItem> findByUserAndIngredient(User user, Ingredient ingredient);
 }
 
@@ -6,6 +6,7 @@ import com.example.recipesapp.model.RecipeIngredient;
 import com.example.recipesapp.model.RecipeIngredientId;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -18,4 +19,17 @@ public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredie
     List<RecipeIngredient> findByRecipe(Recipe recipe);
 
     List<RecipeIngredient> findByIngredient(Ingredient ingredient);
+
+    /**
+     * Proyeccion ligera (solo ids) usada para construir el indice invertido de recetas.
+     */
+    @Query("select ri.id.recipeId as recipeId, ri.id.ingredientId as ingredientId from RecipeIngredient ri")
+    List<RecipeIngredientLink> findAllLinks();
+
+    interface RecipeIngredientLink {
+
+        Long getRecipeId();
+
+        Long getIngredientId();
+    }
 }
\ No newline at end of file
@@ -3,8 +3,12 @@ package com.example.recipesapp.repository;
 import com.example.recipesapp.model.Recipe;
 import com.example.recipesapp.model.Recipe.Difficulty;
 import com.example.recipesapp.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -21,4 +25,12 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     List<Recipe> findByPrepTimeMinutesLessThanEqual(Integer minutes);
 
     List<Recipe> findByCreatedBy(User createdBy);
+
+    Optional<Recipe> findFirstByContentHashOrderByIdAsc(String contentHash);
+
+    @Query("select r.id from Recipe r where r.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct r from Recipe r left join fetch r.ingredients ri left join fetch ri.ingredient where r.id in :ids")
+    List<Recipe> findWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,91 @@
+package com.example.recipesapp.repository;
+
+import com.example.recipesapp.model.RecommendationJob;
+import com.example.recipesapp.model.RecommendationJobStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository de la cola persistente de jobs de recomendacion (Repository pattern).
+ */
+@Repository
+public interface RecommendationJobRepository extends JpaRepository<RecommendationJob, String> {
+
+    /**
+     * SELECT ... FOR UPDATE SKIP LOCKED: cada worker se lleva un lote distinto sin esperar a los demas.
+     * Un lock timeout de -2 es la forma en que Hibernate pide SKIP LOCKED al dialecto.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select j from RecommendationJob j where j.status = :status and j.expired = false "
+        + "and (j.leaseExpiresAt is null or j.leaseExpiresAt < :now) order by j.createdAt")
+    List<RecommendationJob> findClaimable(@Param("status") RecommendationJobStatus status, @Param("now") Instant now, Pageable page);
+
+    Optional<RecommendationJob> findFirstByCoalescingKeyAndStatusAndExpiredFalse(String coalescingKey, RecommendationJobStatus status);
+
+    @Modifying
+    @Query("update RecommendationJob j set j.leaseExpiresAt = :until "
+        + "where j.leaseOwner = :owner and j.id in :ids and j.status = :status")
+    int renewLeases(
+        @Param("owner") String owner,
+        @Param("ids") Collection<String> ids,
+        @Param("status") RecommendationJobStatus status,
+        @Param("until") Instant until
+    );
+
+    /**
+     * Cierra el job solo si este nodo sigue siendo su duenio; si el lease vencio y otro nodo
+     * lo reclamo, no actualiza nada y devuelve 0.
+     */
+    @Modifying
+    @Query("update RecommendationJob j set j.status = :status, j.result = :result, j.errorMessage = :errorMessage, "
+        + "j.completedAt = :now, j.leaseOwner = null, j.leaseExpiresAt = null "
+        + "where j.id = :id and j.leaseOwner = :owner and j.status = :pending")
+    int finish(
+        @Param("id") String id,
+        @Param("owner") String owner,
+        @Param("pending") RecommendationJobStatus pending,
+        @Param("status") RecommendationJobStatus status,
+        @Param("result") byte[] result,
+        @Param("errorMessage") String errorMessage,
+        @Param("now") Instant now
+    );
+
+    @Modifying
+    @Query("update RecommendationJob j set j.leaseOwner = null, j.leaseExpiresAt = null, j.attempts = j.attempts - 1 "
+        + "where j.id = :id and j.leaseOwner = :owner and j.status = :pending")
+    int release(@Param("id") String id, @Param("owner") String owner, @Param("pending") RecommendationJobStatus pending);
+
+    /**
+     * Marca como expirados (conservando la fila para responder 410) y descarta su resultado.
+     */
+    @Modifying
+    @Query("update RecommendationJob j set j.expired = true, j.result = null where j.expired = false and ("
+        + "(j.status = :pending and j.createdAt < :pendingCutoff) "
+        + "or (j.status = :done and j.completedAt < :doneCutoff) "
+        + "or (j.status = :error and j.completedAt < :errorCutoff))")
+    int expire(
+        @Param("pending") RecommendationJobStatus pending,
+        @Param("pendingCutoff") Instant pendingCutoff,
+        @Param("done") RecommendationJobStatus done,
+        @Param("doneCutoff") Instant doneCutoff,
+        @Param("error") RecommendationJobStatus error,
+        @Param("errorCutoff") Instant errorCutoff
+    );
+
+    @Modifying
+    @Query("delete from RecommendationJob j where j.expired = true and j.createdAt < :cutoff")
+    int purgeExpired(@Param("cutoff") Instant cutoff);
+}
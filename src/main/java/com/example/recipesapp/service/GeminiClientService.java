@@ -1,36 +1,86 @@
 package com.example.recipesapp.service;
 
 import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.ai.AiClient;
+import com.example.recipesapp.service.ai.ChunkConsumerGuard;
+import com.example.recipesapp.service.recommendation.RecommendationResponseSchema;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import com.example.recipesapp.service.ai.AiClient;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Encapsula la comunicacion con el SDK oficial de Gemini.
+ * Usa un unico HttpClient del JDK (HTTP/2 con multiplexado y conexiones keep-alive reutilizadas)
+ * y URIs calculadas una sola vez. generateContentAsync no ocupa ningun hilo mientras espera la
+ * respuesta, y cancelar su future aborta el intercambio; generateContent es la misma llamada
+ * esperada en el hilo actual.
+ * Cada llamada tiene un presupuesto de conexion y de lectura; los reintentos y el circuit breaker
+ * viven en los decoradores de AiClient.
+ * Con structured-output la respuesta se restringe a JSON con el esquema de RecommendationResponse,
+ * y max-output-tokens acota su tamano en ambos modos.
  */
 @Service("geminiAiClient")
 public class GeminiClientService implements AiClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GeminiClientService.class);
 
-    private final RestClient restClient;
+    private static final String GENERATE_METHOD = ":generateContent";
+    private static final String STREAM_METHOD = ":streamGenerateContent";
+
+    private final HttpClient httpClient;
+    private final RestClient streamRestClient;
+    private final Duration readTimeout;
     private final String apiUrl;
     private final String apiKey;
+    private final URI generateUri;
+    private final URI streamUri;
+    private final GenerationConfig generationConfig;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
+    // Spring debe usar este constructor: el privado solo existe para forEndpoint.
+    @Autowired
     public GeminiClientService(
         @Value("${ai.gemini.api-key:}") String apiKey,
-        @Value("${ai.gemini.api-url:}") String apiUrl
+        @Value("${ai.gemini.api-url:}") String apiUrl,
+        @Value("${ai.gemini.stream-api-url:}") String streamApiUrl,
+        @Value("${ai.gemini.connect-timeout:2s}") Duration connectTimeout,
+        @Value("${ai.gemini.read-timeout:20s}") Duration readTimeout,
+        @Value("${ai.gemini.stream-read-timeout:90s}") Duration streamReadTimeout,
+        @Value("${ai.gemini.structured-output:true}") boolean structuredOutput,
+        @Value("${ai.gemini.max-output-tokens:2048}") int maxOutputTokens
     ) {
         if (!StringUtils.hasText(apiKey)) {
             throw new AiServiceException("La API de Gemini no esta configurada. Define ai.gemini.api-key.");
@@ -40,46 +90,232 @@ public class GeminiClientService implements AiClient {
         }
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
-        this.restClient = RestClient.builder()
+        this.readTimeout = readTimeout;
+        this.generationConfig = new GenerationConfig(
+            structuredOutput ? MediaType.APPLICATION_JSON_VALUE : null,
+            structuredOutput ? RecommendationResponseSchema.gemini() : null,
+            maxOutputTokens > 0 ? maxOutputTokens : null
+        );
+        this.generateUri = withQuery(apiUrl, "key=" + encode(apiKey));
+        this.streamUri = withQuery(
+            StringUtils.hasText(streamApiUrl) ? streamApiUrl : apiUrl.replace(GENERATE_METHOD, STREAM_METHOD),
+            "alt=sse&key=" + encode(apiKey)
+        );
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .build();
+        // Un stream completo dura bastante mas que una respuesta bloqueante: tiene su propio limite.
+        JdkClientHttpRequestFactory streamRequestFactory = new JdkClientHttpRequestFactory(httpClient);
+        streamRequestFactory.setReadTimeout(streamReadTimeout);
+        this.streamRestClient = RestClient.builder()
+            .requestFactory(streamRequestFactory)
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
             .build();
     }
 
+    private GeminiClientService(GeminiClientService template, String apiUrl) {
+        this.apiKey = template.apiKey;
+        this.apiUrl = apiUrl;
+        this.readTimeout = template.readTimeout;
+        this.generationConfig = template.generationConfig;
+        this.generateUri = withQuery(apiUrl, "key=" + encode(apiKey));
+        this.streamUri = withQuery(apiUrl.replace(GENERATE_METHOD, STREAM_METHOD), "alt=sse&key=" + encode(apiKey));
+        this.httpClient = template.httpClient;
+        this.streamRestClient = template.streamRestClient;
+    }
+
+    /**
+     * Crea un cliente para otro modelo u otro endpoint compatible, reutilizando la API key,
+     * los timeouts y el pool de conexiones. Acepta un nombre de modelo (se sustituye en api-url)
+     * o una URL completa terminada en :generateContent.
+     */
+    public GeminiClientService forEndpoint(String modelOrUrl) {
+        if (modelOrUrl.startsWith("http://") || modelOrUrl.startsWith("https://")) {
+            return new GeminiClientService(this, modelOrUrl);
+        }
+        int modelStart = apiUrl.lastIndexOf('/') + 1;
+        int modelEnd = apiUrl.indexOf(GENERATE_METHOD, modelStart);
+        if (modelEnd < 0) {
+            throw new AiServiceException("ai.gemini.api-url debe terminar en /{modelo}:generateContent.");
+        }
+        return new GeminiClientService(this, apiUrl.substring(0, modelStart) + modelOrUrl + apiUrl.substring(modelEnd));
+    }
+
+    private static URI withQuery(String url, String query) {
+        return URI.create(url + (url.contains("?") ? "&" : "?") + query);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
     @Override
     public String generateContent(String prompt) {
+        CompletableFuture<HttpResponse<byte[]>> exchange = send(prompt);
         try {
-            URI uri = UriComponentsBuilder.fromHttpUrl(apiUrl)
-                .queryParam("key", apiKey)
-                .build()
-                .toUri();
-
-            GeminiGenerateContentRequest request = new GeminiGenerateContentRequest(
-                List.of(new RequestContent(List.of(new RequestPart(prompt))))
-            );
-
-            GeminiGenerateContentResponse response = restClient.post()
-                .uri(uri)
-                .body(request)
-                .retrieve()
-                .body(GeminiGenerateContentResponse.class);
-
-            String text = response != null ? response.firstCandidateText() : null;
-            if (!StringUtils.hasText(text)) {
-                throw new AiServiceException("La API de Gemini respondio sin contenido valido.");
+            return extractText(exchange.get());
+        } catch (InterruptedException ex) {
+            // Cancelar el intercambio libera la conexion (p. ej. cuando pierde un hedge o vence el deadline).
+            exchange.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("La llamada a la API de Gemini fue interrumpida.", ex);
+        } catch (ExecutionException ex) {
+            throw translate(ex.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        CompletableFuture<HttpResponse<byte[]>> exchange = send(prompt);
+        CompletableFuture<String> text = exchange.handle((response, error) -> {
+            if (error != null) {
+                throw translate(error);
             }
-            return text;
-        } catch (RestClientResponseException ex) {
-            LOGGER.error("Gemini respondio con error {} {}: {}", ex.getStatusCode(), ex.getStatusText(), ex.getResponseBodyAsString());
-            throw new AiServiceException("La API de Gemini respondio con un error " + ex.getStatusCode(), ex);
-        } catch (RestClientException ex) {
-            throw new AiServiceException("No fue posible conectarse a la API de Gemini.", ex);
+            return extractText(response);
+        });
+        // Se reenvia la cancelacion a mano para abortar el intercambio (p. ej. cuando pierde un hedge):
+        // que las etapas derivadas de sendAsync la propaguen solas es un detalle del HttpClient del JDK.
+        text.whenComplete((response, error) -> {
+            if (text.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return text;
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(String prompt) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(request(prompt));
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        HttpRequest request = HttpRequest.newBuilder(generateUri)
+            .timeout(readTimeout)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private GeminiGenerateContentRequest request(String prompt) {
+        return new GeminiGenerateContentRequest(
+            List.of(new RequestContent(List.of(new RequestPart(prompt)))),
+            generationConfig
+        );
+    }
+
+    private String extractText(HttpResponse<byte[]> response) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) {
+            LOGGER.error("Gemini respondio con error {}: {}", status, new String(response.body(), StandardCharsets.UTF_8));
+            throw new AiServiceException("La API de Gemini respondio con un error " + status, status.value(), null);
+        }
+        GeminiGenerateContentResponse parsed;
+        try {
+            parsed = objectMapper.readValue(response.body(), GeminiGenerateContentResponse.class);
+        } catch (IOException ex) {
+            throw new AiServiceException("La API de Gemini no devolvio una respuesta valida.", ex);
+        }
+        String text = parsed != null ? parsed.firstCandidateText() : null;
+        if (!StringUtils.hasText(text)) {
+            throw new AiServiceException("La API de Gemini respondio sin contenido valido.");
+        }
+        if (parsed.truncated()) {
+            LOGGER.warn("La respuesta de Gemini se corto al alcanzar max-output-tokens ({} caracteres)", text.length());
+        }
+        return text;
+    }
+
+    private AiServiceException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof AiServiceException aiServiceException) {
+            return aiServiceException;
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return new AiServiceException("La API de Gemini no respondio dentro del tiempo limite.", cause);
+        }
+        if (cause instanceof IOException || cause instanceof CancellationException) {
+            return new AiServiceException("No fue posible conectarse a la API de Gemini.", cause);
+        }
+        return new AiServiceException("La API de Gemini no devolvio una respuesta valida.", cause);
+    }
+
+    /**
+     * Usa :streamGenerateContent con alt=sse: cada evento "data:" trae un fragmento del texto generado.
+     * Lo que lance onChunk (p. ej. el cliente SSE se desconecto) se propaga tal cual, sin convertirlo
+     * en AiServiceException, para que no cuente como fallo del proveedor.
+     */
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        ChunkConsumerGuard chunks = new ChunkConsumerGuard(onChunk);
+        try {
+            streamRestClient.post()
+                .uri(streamUri)
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .body(request(prompt))
+                .exchange((clientRequest, clientResponse) -> {
+                    if (clientResponse.getStatusCode().isError()) {
+                        throw new AiServiceException(
+                            "La API de Gemini respondio con un error " + clientResponse.getStatusCode(),
+                            clientResponse.getStatusCode().value(),
+                            null
+                        );
+                    }
+                    readServerSentEvents(clientResponse.getBody(), chunks);
+                    return null;
+                });
         } catch (RuntimeException ex) {
+            RuntimeException consumerFailure = chunks.consumerFailure(ex);
+            if (consumerFailure != null) {
+                throw consumerFailure;
+            }
+            if (ex instanceof AiServiceException aiServiceException) {
+                throw aiServiceException;
+            }
+            if (ex instanceof RestClientException restClientException) {
+                throw connectionFailure(restClientException);
+            }
             throw new AiServiceException("La API de Gemini no devolvio una respuesta valida.", ex);
         }
     }
 
-    private record GeminiGenerateContentRequest(List<RequestContent> contents) {
+    private AiServiceException connectionFailure(RestClientException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof HttpTimeoutException) {
+            return new AiServiceException("La API de Gemini no respondio dentro del tiempo limite.", ex);
+        }
+        return new AiServiceException("No fue posible conectarse a la API de Gemini.", ex);
+    }
+
+    private void readServerSentEvents(InputStream body, Consumer<String> onChunk) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String payload = line.substring("data:".length()).trim();
+                if (payload.isEmpty()) {
+                    continue;
+                }
+                GeminiGenerateContentResponse chunk = objectMapper.readValue(payload, GeminiGenerateContentResponse.class);
+                String text = chunk.firstCandidateText();
+                if (StringUtils.hasText(text)) {
+                    onChunk.accept(text);
+                }
+            }
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record GeminiGenerateContentRequest(List<RequestContent> contents, GenerationConfig generationConfig) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record GenerationConfig(String responseMimeType, Map<String, Object> responseSchema, Integer maxOutputTokens) {
     }
 
     private record RequestContent(List<RequestPart> parts) {
@@ -103,9 +339,13 @@ public class GeminiClientService implements AiClient {
                 .findFirst()
                 .orElse(null);
         }
+
+        private boolean truncated() {
+            return candidates != null && candidates.stream().anyMatch(candidate -> "MAX_TOKENS".equals(candidate.finishReason()));
+        }
     }
 
-    private record Candidate(ResponseContent content) {
+    private record Candidate(ResponseContent content, String finishReason) {
     }
 
     private record ResponseContent(List<Part> parts) {
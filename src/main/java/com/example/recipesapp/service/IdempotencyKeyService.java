@@ -0,0 +1,118 @@
+package com.example.recipesapp.service;
+
+import com.example.recipesapp.exception.DuplicateResourceException;
+import com.example.recipesapp.model.IdempotencyKey;
+import com.example.recipesapp.repository.IdempotencyKeyRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Recuerda por usuario que receta produjo cada Idempotency-Key, para que un guardado reintentado
+ * devuelva la misma receta con una lectura por clave primaria. Las claves vencen tras ttl y un
+ * barrido periodico las borra.
+ */
+@Service
+public class IdempotencyKeyService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyKeyService.class);
+
+    private final IdempotencyKeyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final long sweepIntervalMillis;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().daemon().name("idempotency-key-sweeper").factory()
+    );
+
+    public IdempotencyKeyService(
+        IdempotencyKeyRepository repository,
+        TransactionTemplate transactionTemplate,
+        @Value("${app.recommendations.save.idempotency-ttl:24h}") Duration ttl,
+        @Value("${app.recommendations.save.idempotency-sweep-interval:1h}") Duration sweepInterval
+    ) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.sweepIntervalMillis = Math.max(60_000, sweepInterval.toMillis());
+    }
+
+    /**
+     * Normaliza la clave recibida en el header: null si no vino, error si excede el largo permitido.
+     */
+    public String normalize(String key) {
+        if (!StringUtils.hasText(key)) {
+            return null;
+        }
+        String trimmed = key.trim();
+        if (trimmed.length() > IdempotencyKey.MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                "La Idempotency-Key no puede superar " + IdempotencyKey.MAX_KEY_LENGTH + " caracteres"
+            );
+        }
+        return trimmed;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findRecipeId(Long userId, String key) {
+        Instant cutoff = Instant.now().minus(ttl);
+        return repository.findById(IdempotencyKey.idFor(userId, key))
+            .filter(entry -> entry.getCreatedAt().isAfter(cutoff))
+            .map(IdempotencyKey::getRecipeId);
+    }
+
+    /**
+     * Registra la clave en la transaccion del guardado. Si otra peticion con la misma clave se
+     * adelanto, el guardado completo se revierte y se informa el conflicto.
+     */
+    @Transactional
+    public void remember(Long userId, String key, Long recipeId) {
+        Optional<IdempotencyKey> existing = repository.findById(IdempotencyKey.idFor(userId, key));
+        if (existing.isPresent()) {
+            // Clave vencida que el barrido aun no borro, o cuya receta ya no existe.
+            existing.get().reassign(recipeId, Instant.now());
+            return;
+        }
+        try {
+            repository.saveAndFlush(new IdempotencyKey(userId, key, recipeId, Instant.now()));
+        } catch (DataIntegrityViolationException ex) {
+            throw new DuplicateResourceException("Ya se esta procesando un guardado con esta Idempotency-Key");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeper() {
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    void sweep() {
+        try {
+            Integer deleted = transactionTemplate.execute(status -> repository.deleteCreatedBefore(Instant.now().minus(ttl)));
+            if (deleted != null && deleted > 0) {
+                LOGGER.debug("Barrido de Idempotency-Key: {} claves vencidas borradas", deleted);
+            }
+        } catch (RuntimeException ex) {
+            // Una excepcion cancelaria el barrido programado; se registra y se sigue.
+            LOGGER.warn("Fallo el barrido de Idempotency-Key vencidas", ex);
+        }
+    }
+}
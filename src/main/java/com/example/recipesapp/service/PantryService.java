@@ -11,15 +11,18 @@ import com.example.recipesapp.model.User;
 import com.example.recipesapp.repository.IngredientCategoryRepository;
 import com.example.recipesapp.repository.IngredientRepository;
 import com.example.recipesapp.repository.PantryItemRepository;
+import com.example.recipesapp.service.event.PantryChangedEvent;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 /**
  * Service Layer para la despensa del usuario. Administra altas, bajas y garantiza
- * coherencia en cantidades y unidades.
+ * coherencia en cantidades y unidades. Cada cambio publica PantryChangedEvent, que se entrega
+ * tras el commit para precalcular recomendaciones.
  */
 @Service
 @Transactional
@@ -31,17 +34,20 @@ public class PantryService {
     private final IngredientRepository ingredientRepository;
     private final IngredientCategoryRepository categoryRepository;
     private final CurrentUserService currentUserService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PantryService(
         PantryItemRepository pantryItemRepository,
         IngredientRepository ingredientRepository,
         IngredientCategoryRepository categoryRepository,
-        CurrentUserService currentUserService
+        CurrentUserService currentUserService,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.pantryItemRepository = pantryItemRepository;
         this.ingredientRepository = ingredientRepository;
         this.categoryRepository = categoryRepository;
         this.currentUserService = currentUserService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -63,6 +69,7 @@ public class PantryService {
         pantryItem.setUnit(request.unit());
 
         PantryItem saved = pantryItemRepository.save(pantryItem);
+        eventPublisher.publishEvent(new PantryChangedEvent(current.getId()));
         return mapToResponse(saved);
     }
 
@@ -77,6 +84,7 @@ public class PantryService {
 
         pantryItem.setQuantity(request.quantity());
         pantryItem.setUnit(request.unit());
+        eventPublisher.publishEvent(new PantryChangedEvent(current.getId()));
         return mapToResponse(pantryItem);
     }
 
@@ -90,6 +98,7 @@ public class PantryService {
             .orElseThrow(() -> new ResourceNotFoundException("No has registrado este ingrediente en tu despensa"));
 
         pantryItemRepository.delete(pantryItem);
+        eventPublisher.publishEvent(new PantryChangedEvent(current.getId()));
     }
 
     private Ingredient resolveIngredient(PantryItemRequest request) {
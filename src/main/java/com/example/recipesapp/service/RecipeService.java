@@ -13,9 +13,14 @@ import com.example.recipesapp.model.RecipeIngredient;
 import com.example.recipesapp.model.User;
 import com.example.recipesapp.repository.IngredientRepository;
 import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
 import com.example.recipesapp.service.factory.RecipeFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,17 +35,20 @@ public class RecipeService {
     private final IngredientRepository ingredientRepository;
     private final CurrentUserService currentUserService;
     private final RecipeFactory recipeFactory;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RecipeService(
         RecipeRepository recipeRepository,
         IngredientRepository ingredientRepository,
         CurrentUserService currentUserService,
-        RecipeFactory recipeFactory
+        RecipeFactory recipeFactory,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.recipeRepository = recipeRepository;
         this.ingredientRepository = ingredientRepository;
         this.currentUserService = currentUserService;
         this.recipeFactory = recipeFactory;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -73,6 +81,7 @@ public class RecipeService {
         mapIngredientRequests(recipe, request.ingredients());
 
         Recipe saved = recipeRepository.save(recipe);
+        eventPublisher.publishEvent(RecipeCatalogChangedEvent.saved(saved));
         return mapToResponse(saved);
     }
 
@@ -83,10 +92,30 @@ public class RecipeService {
 
         // Factory reutilizada para mantener consistencia cuando se actualiza un agregado existente.
         recipeFactory.applyUpdates(recipe, request);
+        // Editada deja de ser la recomendacion original: no debe deduplicar futuros guardados.
+        recipe.setContentHash(null);
+
+        // Las filas que siguen en la receta se actualizan en su lugar: vaciar la coleccion y volver a
+        // agregarlas choca en la sesion con las que orphanRemoval aun no borro (misma clave compuesta).
+        Map<Long, RecipeIngredient> previous = new HashMap<>();
+        for (RecipeIngredient recipeIngredient : recipe.getIngredients()) {
+            previous.put(recipeIngredient.getIngredient().getId(), recipeIngredient);
+        }
+        List<RecipeIngredientRequest> added = new ArrayList<>();
+        for (RecipeIngredientRequest ingredientRequest : request.ingredients()) {
+            RecipeIngredient kept = previous.remove(ingredientRequest.ingredientId());
+            if (kept == null) {
+                added.add(ingredientRequest);
+                continue;
+            }
+            kept.setQuantity(ingredientRequest.quantity());
+            kept.setUnit(ingredientRequest.unit());
+            kept.setNotes(ingredientRequest.notes());
+        }
+        previous.values().forEach(recipe::removeIngredient);
+        mapIngredientRequests(recipe, added);
 
-        recipe.getIngredients().clear();
-        mapIngredientRequests(recipe, request.ingredients());
-
+        eventPublisher.publishEvent(RecipeCatalogChangedEvent.saved(recipe));
         return mapToResponse(recipe);
     }
 
@@ -95,6 +124,7 @@ public class RecipeService {
             .orElseThrow(() -> new ResourceNotFoundException("Receta con id " + id + " no encontrada"));
         enforceOwnership(recipe);
         recipeRepository.delete(recipe);
+        eventPublisher.publishEvent(RecipeCatalogChangedEvent.removed(id));
     }
 
     private void mapIngredientRequests(Recipe recipe, List<RecipeIngredientRequest> ingredientRequests) {
@@ -114,7 +144,10 @@ public class RecipeService {
         }
     }
 
-    private RecipeResponse mapToResponse(Recipe recipe) {
+    /**
+     * Visible en el paquete para armar la respuesta desde un agregado ya cargado, sin releerlo.
+     */
+    RecipeResponse mapToResponse(Recipe recipe) {
         List<RecipeIngredientResponse> ingredientResponses = recipe.getIngredients().stream()
             .map(ri -> new RecipeIngredientResponse(
                 ri.getIngredient().getId(),
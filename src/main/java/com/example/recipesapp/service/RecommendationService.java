@@ -4,7 +4,6 @@ import com.example.recipesapp.dto.RecommendationIngredientDto;
 import com.example.recipesapp.dto.RecommendationResponse;
 import com.example.recipesapp.dto.RecipeResponse;
 import com.example.recipesapp.dto.SaveRecommendationRequest;
-import com.example.recipesapp.exception.AiServiceException;
 import com.example.recipesapp.model.Ingredient;
 import com.example.recipesapp.model.IngredientCategory;
 import com.example.recipesapp.model.PantryItem;
@@ -15,19 +14,28 @@ import com.example.recipesapp.repository.IngredientCategoryRepository;
 import com.example.recipesapp.repository.IngredientRepository;
 import com.example.recipesapp.repository.PantryItemRepository;
 import com.example.recipesapp.repository.RecipeRepository;
-import com.example.recipesapp.service.ai.AiClient;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import com.example.recipesapp.service.recommendation.RecipeContentHash;
+import com.example.recipesapp.service.recommendation.RecommendationEngine;
+import com.example.recipesapp.service.recommendation.RecommendationText;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 /**
@@ -39,9 +47,6 @@ public class RecommendationService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationService.class);
     private static final String DEFAULT_CATEGORY_NAME = "General";
-    private static final int MAX_TITLE_LENGTH = 150;
-    private static final int MAX_DESCRIPTION_LENGTH = 500;
-    private static final int MAX_INSTRUCTIONS_LENGTH = 60000;
 
     private final CurrentUserService currentUserService;
     private final PantryItemRepository pantryItemRepository;
@@ -49,10 +54,13 @@ public class RecommendationService {
     private final IngredientRepository ingredientRepository;
     private final IngredientCategoryRepository categoryRepository;
     private final RecipeService recipeService;
-    // Strategy pattern: AiClient permite intercambiar proveedores de IA sin tocar este servicio.
-    private final AiClient aiClient;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Strategy pattern: el motor (y sus decoradores) decide como se generan las recomendaciones.
+    private final RecommendationEngine recommendationEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecommendationRateLimiter rateLimiter;
+    private final RecommendationMetrics metrics;
+    private final IdempotencyKeyService idempotencyKeyService;
+    private final TransactionTemplate transactionTemplate;
 
     public RecommendationService(
         CurrentUserService currentUserService,
@@ -61,7 +69,12 @@ public class RecommendationService {
         IngredientRepository ingredientRepository,
         IngredientCategoryRepository categoryRepository,
         RecipeService recipeService,
-        AiClient aiClient
+        RecommendationEngine recommendationEngine,
+        ApplicationEventPublisher eventPublisher,
+        RecommendationRateLimiter rateLimiter,
+        RecommendationMetrics metrics,
+        IdempotencyKeyService idempotencyKeyService,
+        TransactionTemplate transactionTemplate
     ) {
         this.currentUserService = currentUserService;
         this.pantryItemRepository = pantryItemRepository;
@@ -69,7 +82,12 @@ public class RecommendationService {
         this.ingredientRepository = ingredientRepository;
         this.categoryRepository = categoryRepository;
         this.recipeService = recipeService;
-        this.aiClient = aiClient;
+        this.recommendationEngine = recommendationEngine;
+        this.eventPublisher = eventPublisher;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.idempotencyKeyService = idempotencyKeyService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public List<RecommendationResponse> generateRecommendationsForCurrentUser() {
@@ -77,22 +95,76 @@ public class RecommendationService {
         return generateRecommendationsForUser(current);
     }
 
+    /**
+     * El rate limit se cobra despues de mirar la cache: una respuesta ya calculada (p. ej. por el
+     * precalculo tras editar la despensa) no llama a la IA y no debe costar un token.
+     */
     public List<RecommendationResponse> generateRecommendationsForUser(User user) {
-        List<PantryItem> pantryItems = pantryItemRepository.findByUser(user);
+        PantrySnapshot pantry = loadPantrySnapshot(user);
+        Optional<List<RecommendationResponse>> cached = recommendationEngine.cached(pantry);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        rateLimiter.acquire(user.getId());
+        return generateRecommendations(pantry);
+    }
 
-        String prompt = buildGeminiPrompt(pantryItems);
-        LOGGER.debug("Gemini prompt: {}", prompt);
+    public List<RecommendationResponse> generateRecommendations(PantrySnapshot pantry) {
+        return recommendationEngine.recommend(pantry);
+    }
 
-        String rawResponse = aiClient.generateContent(prompt);
-        List<RecommendationResponse> parsed = parseGeminiResponse(rawResponse);
-        if (parsed.isEmpty()) {
-            throw new AiServiceException("La API de Gemini no devolvio recetas en la respuesta.");
-        }
-        return parsed;
+    public boolean hasCachedRecommendations(PantrySnapshot pantry) {
+        return recommendationEngine.cached(pantry).isPresent();
+    }
+
+    /**
+     * Igual que generateRecommendations, pero sin bloquear al llamador mientras responde la IA.
+     */
+    public CompletableFuture<List<RecommendationResponse>> generateRecommendationsAsync(PantrySnapshot pantry) {
+        return recommendationEngine.recommendAsync(pantry);
+    }
+
+    public PantrySnapshot loadPantrySnapshotForCurrentUser() {
+        return loadPantrySnapshot(currentUserService.getCurrentUser());
+    }
+
+    /**
+     * Copia la despensa a un Value Object desacoplado de la sesion JPA, para que el resto
+     * del pipeline pueda ejecutarse en otros hilos.
+     */
+    public PantrySnapshot loadPantrySnapshot(User user) {
+        List<PantryItem> pantryItems = pantryItemRepository.findWithIngredientByUser(user);
+        return PantrySnapshot.of(user, pantryItems);
+    }
+
+    /**
+     * Variante por id para procesos en segundo plano que no tienen la entidad User.
+     */
+    public PantrySnapshot loadPantrySnapshot(Long userId) {
+        return PantrySnapshot.of(userId, pantryItemRepository.findWithIngredientByUserId(userId));
+    }
+
+    /**
+     * Guarda la recomendacion como receta de forma idempotente: si ya existe una receta con el mismo
+     * contenido normalizado (p. ej. doble click, o dos usuarios guardando la misma sugerencia) se
+     * devuelve esa; con Idempotency-Key, un reintento se resuelve leyendo la clave.
+     * Si dos guardados llegan a la vez, el indice unico de content_hash rechaza al segundo; como esa
+     * transaccion queda marcada para rollback, se repite en una nueva, que ya encuentra la receta.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RecipeResponse saveRecommendation(SaveRecommendationRequest request, String idempotencyKey) {
+        String key = idempotencyKeyService.normalize(idempotencyKey);
+        return metrics.recordSave(() -> {
+            try {
+                return transactionTemplate.execute(status -> createRecipeFromRecommendation(request, key));
+            } catch (DataIntegrityViolationException ex) {
+                LOGGER.debug("Guardado concurrente de la misma receta; se devuelve la existente");
+                return transactionTemplate.execute(status -> createRecipeFromRecommendation(request, key));
+            }
+        });
     }
 
-    @Transactional
-    public RecipeResponse saveRecommendation(SaveRecommendationRequest request) {
+    private RecipeResponse createRecipeFromRecommendation(SaveRecommendationRequest request, String idempotencyKey) {
         if (request.recipeId() != null) {
             return recipeService.findById(request.recipeId());
         }
@@ -102,19 +174,39 @@ public class RecommendationService {
         }
 
         User current = currentUserService.getCurrentUser();
+        if (idempotencyKey != null) {
+            Optional<Recipe> replayed = idempotencyKeyService.findRecipeId(current.getId(), idempotencyKey)
+                .flatMap(recipeRepository::findById);
+            if (replayed.isPresent()) {
+                return recipeService.mapToResponse(replayed.get());
+            }
+        }
+
+        String contentHash = RecipeContentHash.of(request.title(), request.instructions(), request.ingredients());
+        Recipe recipe = recipeRepository.findFirstByContentHashOrderByIdAsc(contentHash)
+            .orElseGet(() -> createRecipe(request, current, contentHash));
+        if (idempotencyKey != null) {
+            idempotencyKeyService.remember(current.getId(), idempotencyKey, recipe.getId());
+        }
+        // El agregado ya esta completo en memoria; releerlo solo agregaria consultas.
+        return recipeService.mapToResponse(recipe);
+    }
 
+    private Recipe createRecipe(SaveRecommendationRequest request, User current, String contentHash) {
         Recipe recipe = new Recipe();
-        recipe.setName(truncate(request.title(), MAX_TITLE_LENGTH));
-        recipe.setDescription(truncate(request.description(), MAX_DESCRIPTION_LENGTH));
+        recipe.setName(RecommendationText.truncate(request.title(), RecommendationText.MAX_TITLE_LENGTH));
+        recipe.setDescription(RecommendationText.truncate(request.description(), RecommendationText.MAX_DESCRIPTION_LENGTH));
         recipe.setInstructions(resolveInstructions(request.instructions()));
         recipe.setPrepTimeMinutes(request.prepTimeMinutes());
         recipe.setImageUrl(request.imageUrl());
         recipe.setCreatedBy(current);
         recipe.setDifficulty(parseDifficulty(request.difficulty()));
+        recipe.setContentHash(contentHash);
 
         if (request.ingredients() != null && !request.ingredients().isEmpty()) {
+            Map<String, Ingredient> ingredients = resolveIngredientsByName(request.ingredients());
             for (RecommendationIngredientDto dto : request.ingredients()) {
-                Ingredient ingredient = resolveIngredientByName(dto.name());
+                Ingredient ingredient = ingredients.get(lowerCaseName(dto.name()));
                 RecipeIngredient recipeIngredient = new RecipeIngredient();
                 recipeIngredient.setRecipe(recipe);
                 recipeIngredient.setIngredient(ingredient);
@@ -125,7 +217,8 @@ public class RecommendationService {
         }
 
         Recipe saved = recipeRepository.save(recipe);
-        return recipeService.findById(saved.getId());
+        eventPublisher.publishEvent(RecipeCatalogChangedEvent.saved(saved));
+        return saved;
     }
 
     private Recipe.Difficulty parseDifficulty(String difficulty) {
@@ -140,179 +233,62 @@ public class RecommendationService {
         }
     }
 
-    private String buildGeminiPrompt(List<PantryItem> pantryItems) {
-        String ingredientList = pantryItems.stream()
-            .map(item -> String.format(
-                "%s (%s %s)",
-                item.getIngredient().getIngredientName(),
-                item.getQuantity(),
-                item.getUnit()
-            ))
-            .collect(Collectors.joining(", "));
-
-        if (!StringUtils.hasText(ingredientList)) {
-            ingredientList = "ningun ingrediente";
-        }
-
-        return "Actua como un chef asistido por IA. Dispones de estos ingredientes en la despensa: "
-            + ingredientList
-            + ". Debes devolver exactamente 3 recetas distintas en formato JSON (arreglo). "
-            + "Cada receta debe usar la mayor cantidad posible de los ingredientes disponibles y puede incluir como maximo tres ingredientes adicionales si son indispensables. "
-            + "El JSON debe contener objetos con la forma {\"recipeId\": number o null, "
-            + "\"title\": string, \"description\": string, \"instructions\": string, \"prepTimeMinutes\": number o null, "
-            + "\"difficulty\": string, \"imageUrl\": string o null, \"matchScore\": number entre 0 y 1, "
-            + "\"missingIngredients\": array de strings, \"ingredients\": array de objetos {\"name\": string, \"quantity\": number o null, \"unit\": string}}. "
-            + "Si no conoces un identificador real para la receta, usa null en \"recipeId\" y nunca inventes valores. "
-            + "Asegurate de que las tres recetas sean diferentes en titulo e instrucciones y no incluyas texto adicional fuera del JSON.";
-    }
-
-    private String sanitizeJsonBlock(String raw) {
-        if (!StringUtils.hasText(raw)) {
-            throw new AiServiceException("La respuesta de la API de Gemini esta vacia.");
-        }
-        String trimmed = raw.trim();
-        if (trimmed.startsWith("```")) {
-            int firstLineBreak = trimmed.indexOf('\n');
-            int lastFence = trimmed.lastIndexOf("```");
-            if (firstLineBreak > 0 && lastFence > firstLineBreak) {
-                trimmed = trimmed.substring(firstLineBreak + 1, lastFence).trim();
-            }
-        }
-        return trimmed;
-    }
-
-    private List<RecommendationResponse> parseGeminiResponse(String rawText) {
-        try {
-            String jsonPayload = sanitizeJsonBlock(rawText);
-            JsonNode arrayNode = objectMapper.readTree(jsonPayload);
-            if (!arrayNode.isArray()) {
-                throw new AiServiceException("La respuesta de Gemini no tiene el formato JSON esperado.");
-            }
-            List<RecommendationResponse> recommendations = new ArrayList<>();
-            for (JsonNode node : arrayNode) {
-                String title = node.path("title").asText("Receta sugerida");
-                double rawScore = node.path("matchScore").asDouble(0.5);
-                double score = normalizeMatchScore(rawScore);
-
-                Long recipeId = null;
-                if (node.hasNonNull("recipeId")) {
-                    long candidateId = node.path("recipeId").asLong();
-                    if (candidateId > 0 && recipeRepository.existsById(candidateId)) {
-                        recipeId = candidateId;
-                    }
-                }
-                String description = node.path("description").asText(null);
-                String instructions = node.path("instructions").asText(null);
-                Integer prepTime = node.hasNonNull("prepTimeMinutes") ? node.path("prepTimeMinutes").asInt() : null;
-                String difficulty = node.path("difficulty").asText(null);
-                String image = node.path("imageUrl").asText(null);
-
-                List<String> missing = new ArrayList<>();
-                if (node.path("missingIngredients").isArray()) {
-                    node.path("missingIngredients").forEach(m -> {
-                        String value = m.asText();
-                        if (StringUtils.hasText(value)) {
-                            missing.add(value.trim());
-                        }
-                    });
-                }
-
-                List<RecommendationIngredientDto> ingredients = new ArrayList<>();
-                if (node.path("ingredients").isArray()) {
-                    for (JsonNode ingredientNode : node.path("ingredients")) {
-                        String name = ingredientNode.path("name").asText(null);
-                        if (!StringUtils.hasText(name)) {
-                            continue;
-                        }
-                        Double quantity = ingredientNode.hasNonNull("quantity")
-                            ? ingredientNode.path("quantity").asDouble()
-                            : null;
-                        String unit = ingredientNode.path("unit").asText(null);
-                        ingredients.add(new RecommendationIngredientDto(name.trim(), quantity, unit));
-                    }
-                }
-
-                String sanitizedTitle = truncate(title, MAX_TITLE_LENGTH);
-                String sanitizedDescription = truncate(description, MAX_DESCRIPTION_LENGTH);
-                String sanitizedInstructions = truncate(instructions, MAX_INSTRUCTIONS_LENGTH);
-
-                recommendations.add(new RecommendationResponse(
-                    recipeId,
-                    sanitizedTitle,
-                    sanitizedDescription,
-                    sanitizedInstructions,
-                    prepTime,
-                    difficulty,
-                    image,
-                    score,
-                    missing,
-                    ingredients
-                ));
-            }
-            return recommendations;
-        } catch (JsonProcessingException ex) {
-            LOGGER.error("No fue posible interpretar la respuesta de la API de Gemini", ex);
-            throw new AiServiceException("No fue posible interpretar la respuesta de la API de Gemini.", ex);
-        }
-    }
-
-    private double normalizeMatchScore(double rawScore) {
-        if (Double.isNaN(rawScore)) {
-            return 0.5;
-        }
-        double normalized = rawScore;
-        if (rawScore > 1.0) {
-            normalized = rawScore / 100.0;
-        }
-        if (normalized < 0) {
-            normalized = 0;
-        }
-        if (normalized > 1.0) {
-            normalized = 1.0;
-        }
-        return normalized;
-    }
-
     private String resolveInstructions(String instructions) {
         if (StringUtils.hasText(instructions)) {
-            return truncate(instructions, MAX_INSTRUCTIONS_LENGTH);
+            return RecommendationText.truncate(instructions, RecommendationText.MAX_INSTRUCTIONS_LENGTH);
         }
         return "Instrucciones no disponibles. Sigue tu intuicion culinaria para completar la receta.";
     }
 
-    private String truncate(String value, int maxLength) {
-        if (!StringUtils.hasText(value)) {
-            return null;
+    /**
+     * Resuelve todos los ingredientes por nombre (sin distinguir mayusculas) con una consulta, e
+     * inserta los que faltan en un unico batch. Devuelve los ingredientes indexados por lowerCaseName.
+     */
+    private Map<String, Ingredient> resolveIngredientsByName(List<RecommendationIngredientDto> dtos) {
+        // Primer nombre visto por clave: es el que se guarda si el ingrediente es nuevo.
+        Map<String, String> namesByKey = new LinkedHashMap<>();
+        for (RecommendationIngredientDto dto : dtos) {
+            if (!StringUtils.hasText(dto.name())) {
+                throw new IllegalArgumentException("El nombre del ingrediente es obligatorio");
+            }
+            namesByKey.putIfAbsent(lowerCaseName(dto.name()), dto.name().trim());
         }
-        String trimmed = value.trim();
-        byte[] bytes = trimmed.getBytes(StandardCharsets.UTF_8);
-        if (bytes.length <= maxLength) {
-            return trimmed;
+
+        Map<String, Ingredient> resolved = new HashMap<>();
+        List<Ingredient> found = ingredientRepository.findAllByLowerCaseNameIn(namesByKey.keySet());
+        indexByLowerCaseName(found, resolved);
+        if (found.stream().anyMatch(ingredient -> !namesByKey.containsKey(lowerCaseName(ingredient.getIngredientName())))) {
+            // La collation de la base igualo nombres que en Java difieren (p. ej. acentos): se resuelven uno a uno.
+            namesByKey.forEach((key, name) -> {
+                if (!resolved.containsKey(key)) {
+                    ingredientRepository.findByIngredientNameIgnoreCase(name).ifPresent(ingredient -> resolved.put(key, ingredient));
+                }
+            });
         }
-        int end = Math.min(trimmed.length(), maxLength);
-        while (end > 0) {
-            String candidate = trimmed.substring(0, end);
-            if (candidate.getBytes(StandardCharsets.UTF_8).length <= maxLength) {
-                return candidate;
-            }
-            end--;
+        List<String> missing = namesByKey.entrySet().stream()
+            .filter(entry -> !resolved.containsKey(entry.getKey()))
+            .map(Map.Entry::getValue)
+            .toList();
+        if (!missing.isEmpty()) {
+            IngredientCategory category = categoryRepository.findByCategoryNameIgnoreCase(DEFAULT_CATEGORY_NAME)
+                .orElseGet(() -> categoryRepository.save(new IngredientCategory(DEFAULT_CATEGORY_NAME)));
+            ingredientRepository.insertAll(missing, category.getId());
+            indexByLowerCaseName(
+                ingredientRepository.findAllByLowerCaseNameIn(missing.stream().map(this::lowerCaseName).toList()),
+                resolved
+            );
         }
-        return trimmed.substring(0, Math.min(trimmed.length(), maxLength));
+        return resolved;
     }
 
-    private Ingredient resolveIngredientByName(String name) {
-        if (!StringUtils.hasText(name)) {
-            throw new IllegalArgumentException("El nombre del ingrediente es obligatorio");
+    private void indexByLowerCaseName(List<Ingredient> ingredients, Map<String, Ingredient> target) {
+        for (Ingredient ingredient : ingredients) {
+            target.putIfAbsent(lowerCaseName(ingredient.getIngredientName()), ingredient);
         }
-        return ingredientRepository.findByIngredientNameIgnoreCase(name.trim())
-            .orElseGet(() -> createIngredient(name.trim()));
     }
 
-    private Ingredient createIngredient(String name) {
-        IngredientCategory category = categoryRepository.findByCategoryNameIgnoreCase(DEFAULT_CATEGORY_NAME)
-            .orElseGet(() -> categoryRepository.save(new IngredientCategory(DEFAULT_CATEGORY_NAME)));
-        Ingredient ingredient = new Ingredient(name, category);
-        return ingredientRepository.save(ingredient);
+    private String lowerCaseName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
     }
 }
 
@@ -1,9 +1,29 @@
 package com.example.recipesapp.service.ai;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 /**
  * Strategy pattern: abstrae al proveedor de IA usado por RecommendationService.
  */
 public interface AiClient {
 
     String generateContent(String prompt);
+
+    /**
+     * Variante asincrona: el future se completa con el texto o con AiServiceException.
+     * Por defecto ejecuta generateContent en un hilo virtual; los proveedores con un cliente HTTP
+     * no bloqueante la sobrescriben para no ocupar ningun hilo mientras esperan.
+     */
+    default CompletableFuture<String> generateContentAsync(String prompt) {
+        return CompletableFuture.supplyAsync(() -> generateContent(prompt), AsyncCalls.VIRTUAL_THREADS);
+    }
+
+    /**
+     * Entrega el texto generado por fragmentos a medida que llega. Por defecto el proveedor
+     * no soporta streaming y se entrega la respuesta completa en un unico fragmento.
+     */
+    default void streamContent(String prompt, Consumer<String> onChunk) {
+        onChunk.accept(generateContent(prompt));
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.recipesapp.service.ai;
+
+import com.example.recipesapp.exception.AiServiceException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Utilidades compartidas por las variantes asincronas de AiClient y por los decoradores que
+ * llevan la cuenta de fallos del proveedor.
+ */
+final class AsyncCalls {
+
+    /**
+     * Cada tarea en su propio hilo virtual: bloquear dentro de ella no ocupa un hilo de plataforma.
+     */
+    static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().name("ai-async").start(task);
+
+    private AsyncCalls() {
+    }
+
+    /**
+     * Invoca la llamada y convierte una excepcion lanzada antes de crear el future en un future fallido.
+     */
+    static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Devuelve future tal cual, pero si alguien lo cancela ejecuta onCancel. Las etapas derivadas
+     * (whenComplete, thenCompose...) no propagan la cancelacion hacia la llamada que envuelven, asi
+     * que cada decorador la reenvia para que llegue hasta el intercambio HTTP.
+     */
+    static <T> CompletableFuture<T> onCancel(CompletableFuture<T> future, Runnable onCancel) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                onCancel.run();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Quita los envoltorios CompletionException/ExecutionException que agrega CompletableFuture.
+     */
+    static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error fatal) {
+            throw fatal;
+        }
+        return new AiServiceException("No fue posible obtener respuesta de la API de Gemini.", cause);
+    }
+
+    /**
+     * true si la llamada sincrona termino porque quien la pidio la interrumpio o cancelo (hedge
+     * perdedor, deadline del fallback): no es un fallo del proveedor y no debe contarse como tal.
+     */
+    static boolean cancelledByCaller(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
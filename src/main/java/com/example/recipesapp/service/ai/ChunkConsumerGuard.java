@@ -0,0 +1,48 @@
+package com.example.recipesapp.service.ai;
+
+import java.util.function.Consumer;
+
+/**
+ * Envuelve el consumidor de fragmentos de streamContent y recuerda la excepcion que lanzo. Un fallo
+ * del consumidor (p. ej. el navegador cerro la conexion SSE) no es un fallo del proveedor: se deja
+ * pasar sin envolver y no cuenta en el circuit breaker ni en el router.
+ */
+public final class ChunkConsumerGuard implements Consumer<String> {
+
+    private final Consumer<String> delegate;
+    private volatile RuntimeException failure;
+
+    public ChunkConsumerGuard(Consumer<String> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void accept(String chunk) {
+        try {
+            delegate.accept(chunk);
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        }
+    }
+
+    /**
+     * La excepcion del consumidor si error es ella o la tiene como causa; null si el fallo vino del proveedor.
+     */
+    public RuntimeException consumerFailure(Throwable error) {
+        RuntimeException recorded = failure;
+        if (recorded == null) {
+            return null;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause == recorded) {
+                return recorded;
+            }
+        }
+        return null;
+    }
+
+    public boolean threw(Throwable error) {
+        return consumerFailure(error) != null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.recipesapp.service.ai;
+
+import com.example.recipesapp.exception.AiServiceException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: circuit breaker delante del proveedor de IA. Tras failure-threshold fallos
+ * consecutivos (sin respuesta, 429 o 5xx) el circuito se abre y las llamadas fallan de inmediato
+ * durante open-duration; despues se deja pasar una unica llamada de prueba (semiabierto) que
+ * decide si se cierra o vuelve a abrirse. Los errores 4xx del cliente no cuentan como fallos.
+ */
+@Component("circuitBreakerAiClient")
+public class CircuitBreakerAiClientDecorator implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerAiClientDecorator.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AiClient delegate;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreakerAiClientDecorator(
+        @Qualifier("hedgingAiClient") AiClient delegate,
+        @Value("${ai.gemini.circuit-breaker.failure-threshold:5}") int failureThreshold,
+        @Value("${ai.gemini.circuit-breaker.open-duration:30s}") Duration openDuration
+    ) {
+        this.delegate = delegate;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    @Override
+    public String generateContent(String prompt) {
+        return guarded(() -> delegate.generateContent(prompt), ex -> false);
+    }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        try {
+            acquirePermission();
+        } catch (AiServiceException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<String> call = AsyncCalls.start(() -> delegate.generateContentAsync(prompt));
+        return AsyncCalls.onCancel(call.whenComplete((response, error) -> {
+            if (error == null) {
+                onSuccess();
+            } else if (call.isCancelled()) {
+                onCancelled();
+            } else {
+                recordFailure(AsyncCalls.unwrap(error));
+            }
+        }), () -> call.cancel(true));
+    }
+
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        ChunkConsumerGuard chunks = new ChunkConsumerGuard(onChunk);
+        guarded(() -> {
+            delegate.streamContent(prompt, chunks);
+            return null;
+        }, chunks::threw);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * notProviderFailure identifica errores que no vienen del proveedor (el consumidor del stream).
+     */
+    private <T> T guarded(Supplier<T> call, Predicate<RuntimeException> notProviderFailure) {
+        acquirePermission();
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException ex) {
+            if (notProviderFailure.test(ex) || AsyncCalls.cancelledByCaller(ex)) {
+                onCancelled();
+            } else {
+                recordFailure(ex);
+            }
+            throw ex;
+        }
+    }
+
+    private void recordFailure(RuntimeException ex) {
+        if (ex instanceof AiServiceException aiFailure && aiFailure.getStatusCode() != 0 && !aiFailure.isRetryable()) {
+            onSuccess();
+        } else {
+            onFailure();
+        }
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new AiServiceException(
+                "El servicio de IA no esta disponible temporalmente. Intenta de nuevo en unos segundos."
+            );
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOGGER.info("Circuito del proveedor de IA cerrado");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Una llamada cancelada por quien la pidio (o un stream cortado por el cliente) no cuenta como
+     * fallo, pero libera el intento de prueba.
+     */
+    private synchronized void onCancelled() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOGGER.warn("Circuito del proveedor de IA abierto tras {} fallos consecutivos", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        trialInFlight = false;
+    }
+}
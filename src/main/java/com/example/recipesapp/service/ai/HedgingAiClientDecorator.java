@@ -0,0 +1,220 @@
+package com.example.recipesapp.service.ai;
+
+import com.example.recipesapp.exception.AiServiceException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: hedged requests. Si la primera llamada no responde antes del percentil
+ * configurado de la latencia reciente, se lanza una segunda identica y gana la primera respuesta
+ * correcta; la perdedora se cancela interrumpiendo su hilo (el HttpClient aborta el intercambio).
+ * La carga extra esta acotada: cada llamada acumula max-ratio creditos y cada hedge gasta uno,
+ * por lo que a largo plazo nunca se cubre mas de esa fraccion de las llamadas.
+ * En la variante asincrona el respaldo se programa con un executor diferido y la ganadora cancela
+ * el future de la perdedora, cancelacion que cada decorador reenvia hasta abortar su intercambio.
+ * El streaming no se cubre: dos streams mezclarian fragmentos.
+ */
+@Component("hedgingAiClient")
+public class HedgingAiClientDecorator implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingAiClientDecorator.class);
+    private static final long CREDIT = 1_000;
+    private static final long MAX_CREDITS = 10 * CREDIT;
+
+    private final AiClient delegate;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long creditsPerCall;
+    private final int minSamples;
+    private final RollingLatencyHistogram latencies;
+    private final AtomicLong credits = new AtomicLong();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("ai-hedge-", 0).factory()
+    );
+
+    public HedgingAiClientDecorator(
+        @Qualifier("retryingAiClient") AiClient delegate,
+        @Value("${ai.gemini.hedging.enabled:false}") boolean enabled,
+        @Value("${ai.gemini.hedging.percentile:0.95}") double percentile,
+        @Value("${ai.gemini.hedging.min-delay:200ms}") Duration minDelay,
+        @Value("${ai.gemini.hedging.max-ratio:0.1}") double maxRatio,
+        @Value("${ai.gemini.hedging.window-size:512}") int windowSize,
+        @Value("${ai.gemini.hedging.min-samples:50}") int minSamples
+    ) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelay.toMillis();
+        this.creditsPerCall = Math.round(Math.max(0, Math.min(1, maxRatio)) * CREDIT);
+        this.minSamples = Math.max(1, minSamples);
+        this.latencies = new RollingLatencyHistogram(windowSize);
+    }
+
+    @Override
+    public String generateContent(String prompt) {
+        if (!enabled) {
+            return delegate.generateContent(prompt);
+        }
+        credits.accumulateAndGet(creditsPerCall, (current, added) -> Math.min(MAX_CREDITS, current + added));
+
+        CompletionService<String> calls = new ExecutorCompletionService<>(executor);
+        Future<String> primary = calls.submit(() -> timedCall(prompt));
+        Future<String> hedge = null;
+        try {
+            Future<String> completed = null;
+            long delay = hedgeDelayMillis();
+            if (delay >= 0) {
+                completed = calls.poll(delay, TimeUnit.MILLISECONDS);
+                if (completed == null && tryAcquireHedge()) {
+                    LOGGER.debug("La llamada a la IA supero {} ms; se envia una peticion de respaldo", delay);
+                    hedge = calls.submit(() -> timedCall(prompt));
+                }
+            }
+            int outstanding = hedge != null ? 2 : 1;
+            RuntimeException lastFailure = null;
+            while (outstanding > 0) {
+                Future<String> done = completed != null ? completed : calls.take();
+                completed = null;
+                outstanding--;
+                try {
+                    return done.get();
+                } catch (ExecutionException ex) {
+                    lastFailure = unwrap(ex);
+                }
+            }
+            throw lastFailure;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("La llamada a la API de Gemini fue interrumpida.", ex);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        if (!enabled) {
+            return delegate.generateContentAsync(prompt);
+        }
+        credits.accumulateAndGet(creditsPerCall, (current, added) -> Math.min(MAX_CREDITS, current + added));
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        // Llamadas lanzadas: en cuanto hay resultado (o el llamador cancela) se cancelan las que siguen
+        // en vuelo, y con ellas su intercambio HTTP. Cancelar una ya terminada no tiene efecto.
+        List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+        result.whenComplete((response, error) -> calls.forEach(call -> call.cancel(true)));
+        BiConsumer<String, Throwable> onCompleted = (response, error) -> {
+            if (error == null) {
+                // Primero se cancela la perdedora, para que ya este abortada cuando el llamador vea el resultado.
+                calls.forEach(call -> call.cancel(true));
+                result.complete(response);
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(AsyncCalls.unwrap(error));
+            }
+        };
+        CompletableFuture<String> primary = timedCallAsync(prompt);
+        calls.add(primary);
+        primary.whenComplete(onCompleted);
+
+        long delay = hedgeDelayMillis();
+        if (delay >= 0) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                if (result.isDone() || !tryAcquireHedge()) {
+                    return;
+                }
+                // Si la primera ya fallo (outstanding en 0) el resultado esta decidido y no se cubre.
+                if (outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                    return;
+                }
+                LOGGER.debug("La llamada a la IA supero {} ms; se envia una peticion de respaldo", delay);
+                CompletableFuture<String> hedge = timedCallAsync(prompt);
+                calls.add(hedge);
+                // La primera pudo ganar entre la comprobacion de arriba y el add: entonces sobra esta.
+                if (result.isDone()) {
+                    hedge.cancel(true);
+                }
+                hedge.whenComplete(onCompleted);
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        delegate.streamContent(prompt, onChunk);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String timedCall(String prompt) {
+        long start = System.nanoTime();
+        String response = delegate.generateContent(prompt);
+        latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private CompletableFuture<String> timedCallAsync(String prompt) {
+        long start = System.nanoTime();
+        CompletableFuture<String> call = AsyncCalls.start(() -> delegate.generateContentAsync(prompt));
+        return AsyncCalls.onCancel(call.whenComplete((response, error) -> {
+            if (error == null) {
+                latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }), () -> call.cancel(true));
+    }
+
+    /**
+     * Devuelve -1 mientras no haya suficientes muestras para estimar el percentil.
+     */
+    private long hedgeDelayMillis() {
+        if (latencies.size() < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayMillis, latencies.percentile(percentile));
+    }
+
+    private boolean tryAcquireHedge() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    private RuntimeException unwrap(ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new AiServiceException("No fue posible obtener respuesta de la API de Gemini.", ex.getCause());
+    }
+}
@@ -1,5 +1,11 @@
 package com.example.recipesapp.service.ai;
 
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -7,30 +13,88 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 /**
- * Decorator pattern: envuelve al proveedor real para agregar logging y metricas ligeras.
+ * Decorator pattern: envuelve al proveedor real para agregar logging y metricas
+ * (recommendation.ai.call por modo, resultado y codigo HTTP; recommendation.response.size).
+ * Cadena: logging -> circuit breaker -> hedging -> reintentos -> router -> GeminiClientService por proveedor.
  */
 @Component
 @Primary
 public class LoggingAiClientDecorator implements AiClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LoggingAiClientDecorator.class);
+    private static final int STATUS_OK = 200;
 
     private final AiClient delegate;
+    private final RecommendationMetrics metrics;
 
-    public LoggingAiClientDecorator(@Qualifier("geminiAiClient") AiClient delegate) {
+    public LoggingAiClientDecorator(
+        @Qualifier("circuitBreakerAiClient") AiClient delegate,
+        RecommendationMetrics metrics
+    ) {
         this.delegate = delegate;
+        this.metrics = metrics;
     }
 
     @Override
     public String generateContent(String prompt) {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         try {
             String response = delegate.generateContent(prompt);
-            LOGGER.debug("AI response length={} characters", response != null ? response.length() : 0);
+            int length = response != null ? response.length() : 0;
+            metrics.recordAiCall("blocking", System.nanoTime() - start, true, STATUS_OK);
+            metrics.recordResponseSize(length);
+            LOGGER.debug("AI response length={} characters", length);
             return response;
+        } catch (RuntimeException ex) {
+            metrics.recordAiCall("blocking", System.nanoTime() - start, false, statusOf(ex));
+            throw ex;
         } finally {
-            long elapsed = System.currentTimeMillis() - start;
-            LOGGER.debug("AI provider processed prompt in {} ms", elapsed);
+            LOGGER.debug("AI provider processed prompt in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
     }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        long start = System.nanoTime();
+        CompletableFuture<String> call = AsyncCalls.start(() -> delegate.generateContentAsync(prompt));
+        return AsyncCalls.onCancel(call.whenComplete((response, error) -> {
+            if (error != null) {
+                metrics.recordAiCall("async", System.nanoTime() - start, false, statusOf(AsyncCalls.unwrap(error)));
+            } else {
+                int length = response != null ? response.length() : 0;
+                metrics.recordAiCall("async", System.nanoTime() - start, true, STATUS_OK);
+                metrics.recordResponseSize(length);
+                LOGGER.debug("AI response length={} characters", length);
+            }
+            LOGGER.debug("AI provider processed prompt in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }), () -> call.cancel(true));
+    }
+
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        long start = System.nanoTime();
+        AtomicInteger length = new AtomicInteger();
+        ChunkConsumerGuard chunks = new ChunkConsumerGuard(onChunk);
+        try {
+            delegate.streamContent(prompt, chunk -> {
+                length.addAndGet(chunk.length());
+                chunks.accept(chunk);
+            });
+            metrics.recordAiCall("stream", System.nanoTime() - start, true, STATUS_OK);
+            metrics.recordResponseSize(length.get());
+        } catch (RuntimeException ex) {
+            if (chunks.threw(ex)) {
+                LOGGER.debug("El consumidor corto el stream tras {} caracteres", length.get());
+            } else {
+                metrics.recordAiCall("stream", System.nanoTime() - start, false, statusOf(ex));
+            }
+            throw ex;
+        } finally {
+            LOGGER.debug("AI provider streamed prompt in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private int statusOf(RuntimeException ex) {
+        return ex instanceof AiServiceException aiServiceException ? aiServiceException.getStatusCode() : 0;
+    }
 }
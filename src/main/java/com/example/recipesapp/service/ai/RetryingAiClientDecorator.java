@@ -0,0 +1,157 @@
+package com.example.recipesapp.service.ai;
+
+import com.example.recipesapp.exception.AiServiceException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: reintenta las llamadas que fallan con 429 o 5xx usando backoff exponencial
+ * con jitter completo (espera aleatoria entre 0 y el tope del intento). Nunca supera max-attempts
+ * ni el presupuesto total max-elapsed, para no retener el hilo mas de lo que esperaria el usuario.
+ * En la variante asincrona la espera se programa con un executor diferido, sin dormir ningun hilo,
+ * y cancelar el future cancela el intento en curso sin programar otro.
+ */
+@Component("retryingAiClient")
+public class RetryingAiClientDecorator implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingAiClientDecorator.class);
+    private static final CompletableFuture<String> CANCELLED = CompletableFuture.failedFuture(new CancellationException());
+
+    private final AiClient delegate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxElapsedMillis;
+
+    public RetryingAiClientDecorator(
+        @Qualifier("routingAiClient") AiClient delegate,
+        @Value("${ai.gemini.retry.max-attempts:3}") int maxAttempts,
+        @Value("${ai.gemini.retry.initial-backoff:200ms}") Duration initialBackoff,
+        @Value("${ai.gemini.retry.max-backoff:2s}") Duration maxBackoff,
+        @Value("${ai.gemini.retry.max-elapsed:30s}") Duration maxElapsed
+    ) {
+        this.delegate = delegate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoff.toMillis());
+        this.maxElapsedMillis = maxElapsed.toMillis();
+    }
+
+    @Override
+    public String generateContent(String prompt) {
+        return withRetries(() -> delegate.generateContent(prompt), () -> true);
+    }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        // Intento en curso: cancelar el resultado lo cancela a el y corta la cadena de reintentos.
+        AtomicReference<CompletableFuture<String>> inFlight = new AtomicReference<>();
+        CompletableFuture<String> result = attemptAsync(prompt, 1, System.nanoTime(), inFlight);
+        return AsyncCalls.onCancel(result, () -> {
+            CompletableFuture<String> current = inFlight.getAndSet(CANCELLED);
+            if (current != null) {
+                current.cancel(true);
+            }
+        });
+    }
+
+    private CompletableFuture<String> attemptAsync(
+        String prompt,
+        int attempt,
+        long start,
+        AtomicReference<CompletableFuture<String>> inFlight
+    ) {
+        if (inFlight.get() == CANCELLED) {
+            return CompletableFuture.failedFuture(new CancellationException());
+        }
+        CompletableFuture<String> call = AsyncCalls.start(() -> delegate.generateContentAsync(prompt));
+        if (inFlight.getAndUpdate(current -> current == CANCELLED ? current : call) == CANCELLED) {
+            call.cancel(true);
+        }
+        return call.exceptionallyCompose(error -> {
+            RuntimeException failure = AsyncCalls.unwrap(error);
+            long backoff = failure instanceof AiServiceException aiFailure ? retryDelayMillis(aiFailure, attempt, start) : -1;
+            if (backoff < 0) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            return CompletableFuture
+                .runAsync(() -> { }, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> attemptAsync(prompt, attempt + 1, start, inFlight));
+        });
+    }
+
+    /**
+     * Solo se reintenta si aun no se entrego ningun fragmento; de lo contrario el consumidor
+     * recibiria texto duplicado.
+     */
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        AtomicBoolean delivered = new AtomicBoolean();
+        withRetries(() -> {
+            delegate.streamContent(prompt, chunk -> {
+                delivered.set(true);
+                onChunk.accept(chunk);
+            });
+            return null;
+        }, () -> !delivered.get());
+    }
+
+    private <T> T withRetries(Supplier<T> call, Supplier<Boolean> safeToRetry) {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (AiServiceException ex) {
+                long backoff = safeToRetry.get() ? retryDelayMillis(ex, attempt, start) : -1;
+                if (backoff < 0) {
+                    throw ex;
+                }
+                sleep(backoff, ex);
+            }
+        }
+    }
+
+    /**
+     * Espera antes del siguiente intento, o -1 si el fallo no se reintenta o ya no queda presupuesto.
+     */
+    private long retryDelayMillis(AiServiceException ex, int attempt, long start) {
+        if (!ex.isRetryable() || attempt >= maxAttempts) {
+            return -1;
+        }
+        long backoff = backoffMillis(attempt);
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        if (elapsed + backoff > maxElapsedMillis) {
+            LOGGER.warn("Se agoto el presupuesto de reintentos de IA tras {} ms", elapsed);
+            return -1;
+        }
+        LOGGER.debug("Proveedor de IA respondio {}; reintento {} en {} ms", ex.getStatusCode(), attempt, backoff);
+        return backoff;
+    }
+
+    private long backoffMillis(int attempt) {
+        long cap = initialBackoffMillis << Math.min(attempt - 1, 20);
+        cap = Math.min(maxBackoffMillis, cap);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private void sleep(long millis, AiServiceException lastFailure) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw lastFailure;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.recipesapp.service.ai;
+
+/**
+ * Histograma de latencias sobre las ultimas N muestras. Las cubetas crecen un 10% cada una
+ * (de 1 ms a ~3 min), asi que un percentil se resuelve recorriendo unas 130 cubetas sin ordenar
+ * muestras; el valor devuelto es el limite superior de la cubeta, con error relativo <= 10%.
+ * Una cola circular recuerda la cubeta de cada muestra para descontarla al salir de la ventana.
+ */
+public class RollingLatencyHistogram {
+
+    private static final double GROWTH = 1.1;
+    private static final long[] UPPER_BOUNDS_MILLIS = buildBounds();
+
+    private final int[] window;
+    private final int[] bucketCounts = new int[UPPER_BOUNDS_MILLIS.length];
+    private int next;
+    private int size;
+
+    public RollingLatencyHistogram(int windowSize) {
+        this.window = new int[Math.max(1, windowSize)];
+    }
+
+    private static long[] buildBounds() {
+        long[] bounds = new long[131];
+        double bound = 1;
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = (long) Math.ceil(bound);
+            bound *= GROWTH;
+        }
+        bounds[bounds.length - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    public synchronized void record(long latencyMillis) {
+        int bucket = bucketFor(latencyMillis);
+        if (size == window.length) {
+            bucketCounts[window[next]]--;
+        } else {
+            size++;
+        }
+        window[next] = bucket;
+        bucketCounts[bucket]++;
+        next = (next + 1) % window.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Devuelve el percentil (0..1) de las muestras en la ventana, o -1 si esta vacia.
+     */
+    public synchronized long percentile(double quantile) {
+        if (size == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * size));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return UPPER_BOUNDS_MILLIS[i];
+            }
+        }
+        return UPPER_BOUNDS_MILLIS[UPPER_BOUNDS_MILLIS.length - 1];
+    }
+
+    private static int bucketFor(long latencyMillis) {
+        int low = 0;
+        int high = UPPER_BOUNDS_MILLIS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (UPPER_BOUNDS_MILLIS[mid] < latencyMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.recipesapp.service.ai;
+
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.GeminiClientService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Strategy pattern: reparte las llamadas entre varios proveedores (modelos de Gemini o endpoints
+ * compatibles). Por proveedor se lleva un EWMA de latencia y de tasa de error; cada llamada va al
+ * proveedor sano mas rapido, salvo una fraccion exploration-rate que se reparte al azar con peso
+ * inverso a la latencia, para medir de nuevo a los lentos o caidos y notar cuando se recuperan.
+ * Con un unico proveedor se comporta como una llamada directa.
+ */
+@Component("routingAiClient")
+public class RoutingAiClient implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoutingAiClient.class);
+
+    private final List<Provider> providers;
+    private final double alpha;
+    private final double explorationRate;
+    private final double maxErrorRate;
+
+    @Autowired
+    public RoutingAiClient(
+        @Qualifier("geminiAiClient") GeminiClientService gemini,
+        @Value("${ai.gemini.router.providers:}") String providerList,
+        @Value("${ai.gemini.router.ewma-alpha:0.2}") double alpha,
+        @Value("${ai.gemini.router.exploration-rate:0.05}") double explorationRate,
+        @Value("${ai.gemini.router.max-error-rate:0.5}") double maxErrorRate
+    ) {
+        this(configuredProviders(gemini, providerList), alpha, explorationRate, maxErrorRate);
+    }
+
+    public RoutingAiClient(Map<String, AiClient> providers, double alpha, double explorationRate, double maxErrorRate) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un proveedor de IA");
+        }
+        this.providers = providers.entrySet().stream()
+            .map(entry -> new Provider(entry.getKey(), entry.getValue()))
+            .toList();
+        this.alpha = alpha;
+        this.explorationRate = explorationRate;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    private static Map<String, AiClient> configuredProviders(GeminiClientService gemini, String providerList) {
+        Map<String, AiClient> providers = new LinkedHashMap<>();
+        Arrays.stream(providerList.split(","))
+            .map(String::trim)
+            .filter(StringUtils::hasText)
+            .forEach(entry -> providers.putIfAbsent(entry, gemini.forEndpoint(entry)));
+        if (providers.isEmpty()) {
+            providers.put("default", gemini);
+        }
+        return providers;
+    }
+
+    @Override
+    public String generateContent(String prompt) {
+        Provider provider = choose();
+        long start = System.nanoTime();
+        try {
+            String response = provider.client.generateContent(prompt);
+            provider.recordSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), alpha);
+            return response;
+        } catch (RuntimeException ex) {
+            // Igual que en la variante asincrona: una llamada interrumpida no dice nada del proveedor.
+            if (!AsyncCalls.cancelledByCaller(ex)) {
+                provider.recordOutcome(ex, alpha);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        Provider provider = choose();
+        long start = System.nanoTime();
+        CompletableFuture<String> call = AsyncCalls.start(() -> provider.client.generateContentAsync(prompt));
+        return AsyncCalls.onCancel(call.whenComplete((response, error) -> {
+            if (error == null) {
+                provider.recordSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), alpha);
+            } else if (!call.isCancelled()) {
+                // Una llamada cancelada (p. ej. el hedge perdedor) no dice nada del proveedor.
+                provider.recordOutcome(AsyncCalls.unwrap(error), alpha);
+            }
+        }), () -> call.cancel(true));
+    }
+
+    /**
+     * En streaming solo se registra el resultado: la duracion de un stream completo no es
+     * comparable con la latencia de una respuesta bloqueante.
+     */
+    @Override
+    public void streamContent(String prompt, Consumer<String> onChunk) {
+        Provider provider = choose();
+        ChunkConsumerGuard chunks = new ChunkConsumerGuard(onChunk);
+        try {
+            provider.client.streamContent(prompt, chunks);
+            provider.recordSuccess(-1, alpha);
+        } catch (RuntimeException ex) {
+            // Si el que fallo fue el consumidor (cliente desconectado), el proveedor no tiene la culpa.
+            if (!chunks.threw(ex) && !AsyncCalls.cancelledByCaller(ex)) {
+                provider.recordOutcome(ex, alpha);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Estado de cada proveedor en el orden configurado, para logs y pruebas.
+     */
+    public List<ProviderStats> stats() {
+        return providers.stream().map(Provider::snapshot).toList();
+    }
+
+    Provider choose() {
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < explorationRate) {
+            return weightedRandom(random);
+        }
+        Provider best = null;
+        double bestLatency = Double.MAX_VALUE;
+        for (Provider provider : providers) {
+            ProviderStats stats = provider.snapshot();
+            if (stats.errorRate() >= maxErrorRate) {
+                continue;
+            }
+            // Sin medicion todavia: se prueba antes que cualquier otro para conocer su latencia.
+            double latency = Double.isNaN(stats.latencyMillis()) ? -1 : stats.latencyMillis();
+            if (latency < bestLatency) {
+                best = provider;
+                bestLatency = latency;
+            }
+        }
+        if (best == null) {
+            best = providers.stream()
+                .min((a, b) -> Double.compare(a.snapshot().errorRate(), b.snapshot().errorRate()))
+                .orElseThrow();
+            LOGGER.debug("Ningun proveedor de IA esta sano; se usa {} (menor tasa de error)", best.name);
+        }
+        return best;
+    }
+
+    private Provider weightedRandom(ThreadLocalRandom random) {
+        List<Double> weights = new ArrayList<>(providers.size());
+        double total = 0;
+        for (Provider provider : providers) {
+            ProviderStats stats = provider.snapshot();
+            double latency = Double.isNaN(stats.latencyMillis()) ? 1 : Math.max(1, stats.latencyMillis());
+            double weight = 1.0 / latency;
+            weights.add(weight);
+            total += weight;
+        }
+        double target = random.nextDouble(total);
+        for (int i = 0; i < providers.size(); i++) {
+            target -= weights.get(i);
+            if (target < 0) {
+                return providers.get(i);
+            }
+        }
+        return providers.get(providers.size() - 1);
+    }
+
+    public record ProviderStats(String name, double latencyMillis, double errorRate) {
+    }
+
+    static final class Provider {
+
+        private final String name;
+        private final AiClient client;
+        private double latencyEwma = Double.NaN;
+        private double errorEwma;
+
+        Provider(String name, AiClient client) {
+            this.name = name;
+            this.client = client;
+        }
+
+        synchronized ProviderStats snapshot() {
+            return new ProviderStats(name, latencyEwma, errorEwma);
+        }
+
+        synchronized void recordSuccess(long latencyMillis, double alpha) {
+            if (latencyMillis >= 0) {
+                latencyEwma = Double.isNaN(latencyEwma)
+                    ? latencyMillis
+                    : latencyEwma + alpha * (latencyMillis - latencyEwma);
+            }
+            errorEwma = errorEwma * (1 - alpha);
+        }
+
+        /**
+         * Un 4xx del cliente no dice nada de la salud del proveedor y no mueve sus estadisticas.
+         */
+        synchronized void recordOutcome(RuntimeException ex, double alpha) {
+            boolean clientError = ex instanceof AiServiceException aiFailure
+                && aiFailure.getStatusCode() != 0
+                && !aiFailure.isRetryable();
+            if (clientError) {
+                return;
+            }
+            errorEwma = errorEwma + alpha * (1 - errorEwma);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.recipesapp.service.event;
+
+/**
+ * Evento de dominio publicado cuando un usuario agrega, modifica o quita un ingrediente de su despensa.
+ */
+public record PantryChangedEvent(Long userId) {
+}
@@ -0,0 +1,27 @@
+package com.example.recipesapp.service.event;
+
+import com.example.recipesapp.model.Recipe;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Evento de dominio publicado cuando una receta del catalogo se crea, actualiza o elimina.
+ * Lleva los ids de ingredientes para que los indices en memoria no tengan que volver a la base de datos.
+ */
+public record RecipeCatalogChangedEvent(
+    Long recipeId,
+    Set<Long> ingredientIds,
+    boolean deleted
+) {
+
+    public static RecipeCatalogChangedEvent saved(Recipe recipe) {
+        Set<Long> ingredientIds = recipe.getIngredients().stream()
+            .map(recipeIngredient -> recipeIngredient.getIngredient().getId())
+            .collect(Collectors.toUnmodifiableSet());
+        return new RecipeCatalogChangedEvent(recipe.getId(), ingredientIds, false);
+    }
+
+    public static RecipeCatalogChangedEvent removed(Long recipeId) {
+        return new RecipeCatalogChangedEvent(recipeId, Set.of(), true);
+    }
+}
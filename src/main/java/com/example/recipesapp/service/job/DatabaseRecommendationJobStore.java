@@ -0,0 +1,199 @@
+package com.example.recipesapp.service.job;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.ResourceExpiredException;
+import com.example.recipesapp.model.RecommendationJob;
+import com.example.recipesapp.model.RecommendationJobStatus;
+import com.example.recipesapp.repository.RecommendationJobRepository;
+import com.example.recipesapp.service.job.RecommendationJobService.JobResult;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cola de jobs de recomendacion en la tabla recommendation_jobs, compartida por todas las
+ * instancias (app.recommendations.jobs.mode=database). Cualquier nodo responde el GET de un job
+ * y un reinicio no pierde los pendientes. Las expiraciones usan los mismos TTL que el almacen
+ * en memoria; los jobs expirados conservan la fila un tiempo para responder 410 Gone.
+ */
+@Component
+@ConditionalOnProperty(name = "app.recommendations.jobs.mode", havingValue = "database")
+public class DatabaseRecommendationJobStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseRecommendationJobStore.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RecommendationJobRepository repository;
+    private final RecommendationJobCodec codec = new RecommendationJobCodec();
+    private final Duration pendingTtl;
+    private final Duration doneTtl;
+    private final Duration errorTtl;
+
+    public DatabaseRecommendationJobStore(
+        RecommendationJobRepository repository,
+        @Value("${app.recommendations.jobs.store.pending-ttl:15m}") Duration pendingTtl,
+        @Value("${app.recommendations.jobs.store.done-ttl:10m}") Duration doneTtl,
+        @Value("${app.recommendations.jobs.store.error-ttl:2m}") Duration errorTtl
+    ) {
+        this.repository = repository;
+        this.pendingTtl = pendingTtl;
+        this.doneTtl = doneTtl;
+        this.errorTtl = errorTtl;
+    }
+
+    public record ClaimedJob(String jobId, PantrySnapshot pantry) {
+    }
+
+    @Transactional
+    public JobResult create(PantrySnapshot pantry, String coalescingKey) {
+        RecommendationJob job = new RecommendationJob(
+            UUID.randomUUID().toString(),
+            pantry.userId(),
+            coalescingKey,
+            codec.writePantry(pantry),
+            Instant.now()
+        );
+        repository.save(job);
+        return toJobResult(job);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<JobResult> findPending(String coalescingKey) {
+        return repository.findFirstByCoalescingKeyAndStatusAndExpiredFalse(coalescingKey, RecommendationJobStatus.PENDING)
+            .map(this::toJobResult);
+    }
+
+    /**
+     * Devuelve el job o null si nunca existio; lanza ResourceExpiredException si ya expiro.
+     */
+    @Transactional(readOnly = true)
+    public JobResult find(String jobId) {
+        RecommendationJob job = repository.findById(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        if (job.isExpired() || isExpired(job, Instant.now())) {
+            throw new ResourceExpiredException("El job " + jobId + " expiro y sus resultados ya no estan disponibles");
+        }
+        return toJobResult(job);
+    }
+
+    /**
+     * Reclama hasta limit jobs libres (o con lease vencido) para owner. Los que ya agotaron
+     * maxAttempts se cierran con error en lugar de reintentarse indefinidamente.
+     */
+    @Transactional
+    public List<ClaimedJob> claim(String owner, int limit, Duration lease, int maxAttempts) {
+        Instant now = Instant.now();
+        List<ClaimedJob> claimed = new ArrayList<>();
+        for (RecommendationJob job : repository.findClaimable(RecommendationJobStatus.PENDING, now, PageRequest.of(0, limit))) {
+            if (job.getAttempts() >= maxAttempts) {
+                LOGGER.warn("Job de recomendacion {} descartado tras {} intentos", job.getId(), job.getAttempts());
+                job.fail("No fue posible completar la recomendacion. Intenta de nuevo.", now);
+                continue;
+            }
+            try {
+                PantrySnapshot pantry = codec.readPantry(job.getPantry());
+                job.claim(owner, now.plus(lease));
+                claimed.add(new ClaimedJob(job.getId(), pantry));
+            } catch (UncheckedIOException ex) {
+                LOGGER.error("Job de recomendacion {} con despensa ilegible", job.getId(), ex);
+                job.fail("No fue posible leer la despensa del job.", now);
+            }
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public int renewLeases(String owner, Collection<String> jobIds, Duration lease) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        return repository.renewLeases(owner, jobIds, RecommendationJobStatus.PENDING, Instant.now().plus(lease));
+    }
+
+    @Transactional
+    public boolean complete(String jobId, String owner, List<RecommendationResponse> recommendations) {
+        return repository.finish(
+            jobId,
+            owner,
+            RecommendationJobStatus.PENDING,
+            RecommendationJobStatus.DONE,
+            codec.writeRecommendations(recommendations),
+            null,
+            Instant.now()
+        ) > 0;
+    }
+
+    @Transactional
+    public boolean fail(String jobId, String owner, String errorMessage) {
+        String message = errorMessage != null && errorMessage.length() > MAX_ERROR_LENGTH
+            ? errorMessage.substring(0, MAX_ERROR_LENGTH)
+            : errorMessage;
+        return repository.finish(
+            jobId, owner, RecommendationJobStatus.PENDING, RecommendationJobStatus.ERROR, null, message, Instant.now()
+        ) > 0;
+    }
+
+    /**
+     * Devuelve el job a la cola sin contar el intento, p. ej. si este nodo no tenia capacidad.
+     */
+    @Transactional
+    public void release(String jobId, String owner) {
+        repository.release(jobId, owner, RecommendationJobStatus.PENDING);
+    }
+
+    /**
+     * Marca como expirados los jobs vencidos y borra los expirados hace mas de tombstoneRetention.
+     */
+    @Transactional
+    public void sweep(Duration tombstoneRetention) {
+        Instant now = Instant.now();
+        int expired = repository.expire(
+            RecommendationJobStatus.PENDING, now.minus(pendingTtl),
+            RecommendationJobStatus.DONE, now.minus(doneTtl),
+            RecommendationJobStatus.ERROR, now.minus(errorTtl)
+        );
+        Duration longestTtl = max(pendingTtl, max(doneTtl, errorTtl));
+        int purged = repository.purgeExpired(now.minus(longestTtl).minus(tombstoneRetention));
+        if (expired > 0 || purged > 0) {
+            LOGGER.debug("Barrido de jobs persistidos: {} expirados, {} borrados", expired, purged);
+        }
+    }
+
+    private JobResult toJobResult(RecommendationJob job) {
+        return JobResult.restore(
+            job.getId(),
+            job.getStatus(),
+            job.getCreatedAt(),
+            job.getCompletedAt(),
+            codec.readRecommendations(job.getResult()),
+            job.getErrorMessage()
+        );
+    }
+
+    private boolean isExpired(RecommendationJob job, Instant now) {
+        return switch (job.getStatus()) {
+            case PENDING -> job.getCreatedAt().plus(pendingTtl).isBefore(now);
+            case DONE -> job.getCompletedAt().plus(doneTtl).isBefore(now);
+            case ERROR -> job.getCompletedAt().plus(errorTtl).isBefore(now);
+        };
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
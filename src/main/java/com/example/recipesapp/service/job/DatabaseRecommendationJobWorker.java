@@ -0,0 +1,158 @@
+package com.example.recipesapp.service.job;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.TooManyRequestsException;
+import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.job.DatabaseRecommendationJobStore.ClaimedJob;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Worker de la cola persistente que corre en cada instancia. Cada poll-interval reclama un lote
+ * (hasta batch-size, sin superar la capacidad libre de RecommendationJobExecutor) y lo ejecuta;
+ * mientras un job corre, un heartbeat renueva su lease. Si el nodo cae, el lease vence y otro
+ * worker lo reclama, hasta max-attempts intentos.
+ */
+@Component
+@ConditionalOnProperty(name = "app.recommendations.jobs.mode", havingValue = "database")
+public class DatabaseRecommendationJobWorker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseRecommendationJobWorker.class);
+
+    private final DatabaseRecommendationJobStore store;
+    private final RecommendationService recommendationService;
+    private final RecommendationJobExecutor executor;
+    private final String nodeId;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long pollIntervalMillis;
+    private final long heartbeatIntervalMillis;
+    private final long sweepIntervalMillis;
+    private final Duration tombstoneRetention;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().daemon().name("recommendation-job-worker").factory()
+    );
+
+    public DatabaseRecommendationJobWorker(
+        DatabaseRecommendationJobStore store,
+        RecommendationService recommendationService,
+        RecommendationJobExecutor executor,
+        @Value("${app.recommendations.jobs.database.node-id:}") String nodeId,
+        @Value("${app.recommendations.jobs.database.batch-size:8}") int batchSize,
+        @Value("${app.recommendations.jobs.database.lease:60s}") Duration lease,
+        @Value("${app.recommendations.jobs.database.max-attempts:3}") int maxAttempts,
+        @Value("${app.recommendations.jobs.database.poll-interval:1s}") Duration pollInterval,
+        @Value("${app.recommendations.jobs.database.heartbeat-interval:15s}") Duration heartbeatInterval,
+        @Value("${app.recommendations.jobs.store.sweep-interval:30s}") Duration sweepInterval,
+        @Value("${app.recommendations.jobs.database.tombstone-retention:1h}") Duration tombstoneRetention
+    ) {
+        this.store = store;
+        this.recommendationService = recommendationService;
+        this.executor = executor;
+        // El sufijo aleatorio distingue un reinicio del mismo host: los leases del proceso anterior no se heredan.
+        String uniqueSuffix = UUID.randomUUID().toString().substring(0, 8);
+        this.nodeId = (StringUtils.hasText(nodeId) ? nodeId : "node") + "-" + uniqueSuffix;
+        this.batchSize = Math.max(1, batchSize);
+        this.lease = lease;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.pollIntervalMillis = Math.max(100, pollInterval.toMillis());
+        this.heartbeatIntervalMillis = Math.max(100, Math.min(heartbeatInterval.toMillis(), lease.toMillis() / 2));
+        this.sweepIntervalMillis = Math.max(1000, sweepInterval.toMillis());
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> safely("reclamar jobs", this::poll),
+            pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> safely("renovar leases", this::heartbeat),
+            heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> safely("barrer jobs expirados", () -> store.sweep(tombstoneRetention)),
+            sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Worker de jobs de recomendacion iniciado como {}", nodeId);
+    }
+
+    /**
+     * Al apagar se devuelven los jobs en curso para que otro nodo los tome sin esperar el lease.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (String jobId : running) {
+            try {
+                store.release(jobId, nodeId);
+            } catch (RuntimeException ex) {
+                LOGGER.debug("No se pudo liberar el job {} al apagar: {}", jobId, ex.getMessage());
+            }
+        }
+    }
+
+    void poll() {
+        int capacity = Math.min(batchSize, executor.availableSlots());
+        if (capacity <= 0) {
+            return;
+        }
+        List<ClaimedJob> claimed = store.claim(nodeId, capacity, lease, maxAttempts);
+        for (ClaimedJob job : claimed) {
+            running.add(job.jobId());
+            try {
+                executor.submitAsync(() -> recommendationService.generateRecommendationsAsync(job.pantry()))
+                    .whenComplete((recommendations, error) -> finish(job.jobId(), recommendations, error));
+            } catch (TooManyRequestsException ex) {
+                running.remove(job.jobId());
+                store.release(job.jobId(), nodeId);
+            }
+        }
+    }
+
+    void heartbeat() {
+        store.renewLeases(nodeId, Set.copyOf(running), lease);
+    }
+
+    private void finish(String jobId, List<RecommendationResponse> recommendations, Throwable error) {
+        running.remove(jobId);
+        try {
+            boolean owned = error == null
+                ? store.complete(jobId, nodeId, recommendations)
+                : store.fail(jobId, nodeId, messageOf(error));
+            if (!owned) {
+                LOGGER.warn("El lease del job {} vencio antes de terminar; otro nodo lo reclamo", jobId);
+            }
+        } catch (RuntimeException ex) {
+            // El lease vencera y otro worker lo reintentara.
+            LOGGER.warn("No se pudo guardar el resultado del job {}", jobId, ex);
+        }
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    private void safely(String action, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            // Una excepcion cancelaria la tarea programada; se registra y se sigue.
+            LOGGER.warn("Fallo al {} de recomendacion", action, ex);
+        }
+    }
+}
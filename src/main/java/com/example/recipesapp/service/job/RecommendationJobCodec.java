@@ -0,0 +1,69 @@
+package com.example.recipesapp.service.job;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializa la despensa y el resultado de un job persistido como JSON comprimido con gzip,
+ * omitiendo los campos nulos. Las recomendaciones repiten muchas palabras y comprimen varias veces.
+ */
+final class RecommendationJobCodec {
+
+    private static final TypeReference<List<RecommendationResponse>> RECOMMENDATIONS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    byte[] writePantry(PantrySnapshot pantry) {
+        return write(pantry);
+    }
+
+    PantrySnapshot readPantry(byte[] compressed) {
+        return read(compressed, objectMapper.constructType(PantrySnapshot.class));
+    }
+
+    byte[] writeRecommendations(List<RecommendationResponse> recommendations) {
+        return write(recommendations);
+    }
+
+    List<RecommendationResponse> readRecommendations(byte[] compressed) {
+        if (compressed == null) {
+            return List.of();
+        }
+        return read(compressed, objectMapper.getTypeFactory().constructType(RECOMMENDATIONS));
+    }
+
+    private byte[] write(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private <T> T read(byte[] compressed, JavaType type) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return objectMapper.readValue(gzip, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
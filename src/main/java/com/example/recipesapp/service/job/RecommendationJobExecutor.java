@@ -0,0 +1,177 @@
+package com.example.recipesapp.service.job;
+
+import com.example.recipesapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Motor de ejecucion acotado para los jobs de recomendacion.
+ * Cada job corre en un hilo virtual (la espera HTTP a la IA no ocupa un hilo de plataforma),
+ * un semaforo limita las llamadas concurrentes a la IA y otro limita cuantos jobs pueden
+ * esperar en cola; al superar ese limite se rechaza con TooManyRequestsException (HTTP 429).
+ * submitAsync aplica los mismos limites a trabajos que devuelven un CompletableFuture: los admitidos
+ * sin permiso esperan en una cola y ningun hilo queda bloqueado mientras responde la IA.
+ */
+@Component
+public class RecommendationJobExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationJobExecutor.class);
+
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final Semaphore aiCalls;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Queue<Runnable> waitingForPermit = new ConcurrentLinkedQueue<>();
+    private final int maxAdmitted;
+    private final long retryAfterSeconds;
+
+    public RecommendationJobExecutor(
+        MeterRegistry meterRegistry,
+        @Value("${app.recommendations.jobs.max-concurrent:8}") int maxConcurrent,
+        @Value("${app.recommendations.jobs.queue-capacity:64}") int queueCapacity,
+        @Value("${app.recommendations.jobs.retry-after:5s}") Duration retryAfter,
+        @Value("${app.recommendations.jobs.virtual-threads:true}") boolean virtualThreads
+    ) {
+        int concurrency = Math.max(1, maxConcurrent);
+        this.maxAdmitted = concurrency + Math.max(0, queueCapacity);
+        this.admission = new Semaphore(maxAdmitted);
+        this.aiCalls = new Semaphore(concurrency, true);
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.executor = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("recommendation-job-", 0).factory())
+            : Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("recommendation-job-", 0).factory());
+
+        Gauge.builder("recommendation.jobs.queued", this, RecommendationJobExecutor::queuedCount)
+            .description("Jobs de recomendacion admitidos esperando un permiso de llamada a la IA")
+            .register(meterRegistry);
+        Gauge.builder("recommendation.jobs.active", this, RecommendationJobExecutor::activeCount)
+            .description("Jobs de recomendacion ejecutandose en este momento")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Admite el trabajo o lo rechaza de inmediato si la cola esta llena; nunca bloquea al llamador.
+     */
+    public void submit(Runnable task) {
+        if (!admission.tryAcquire()) {
+            throw saturated();
+        }
+        try {
+            executor.execute(() -> runAdmitted(task));
+        } catch (RejectedExecutionException ex) {
+            admission.release();
+            throw saturated();
+        }
+    }
+
+    /**
+     * Admite el trabajo asincrono o lo rechaza con HTTP 429. El trabajo se inicia (en un hilo virtual)
+     * cuando hay permiso de llamada a la IA, y el permiso se devuelve al completarse su future.
+     */
+    public <T> CompletableFuture<T> submitAsync(Supplier<CompletableFuture<T>> work) {
+        if (!admission.tryAcquire()) {
+            throw saturated();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waitingForPermit.add(() -> startAdmitted(work, result));
+        drainWaiting();
+        return result;
+    }
+
+    /**
+     * Trabajos que aun se pueden admitir sin rechazar con 429.
+     */
+    public int availableSlots() {
+        return admission.availablePermits();
+    }
+
+    public int activeCount() {
+        return active.get();
+    }
+
+    public int queuedCount() {
+        return Math.max(0, maxAdmitted - admission.availablePermits() - active.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runAdmitted(Runnable task) {
+        try {
+            aiCalls.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            admission.release();
+            LOGGER.warn("Job de recomendacion descartado por interrupcion antes de ejecutarse");
+            return;
+        }
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            aiCalls.release();
+            admission.release();
+        }
+    }
+
+    private <T> void startAdmitted(Supplier<CompletableFuture<T>> work, CompletableFuture<T> result) {
+        active.incrementAndGet();
+        CompletableFuture<T> started;
+        try {
+            started = CompletableFuture.supplyAsync(work, executor).thenCompose(future -> future);
+        } catch (RejectedExecutionException ex) {
+            started = CompletableFuture.failedFuture(saturated());
+        }
+        started.whenComplete((value, error) -> {
+            active.decrementAndGet();
+            aiCalls.release();
+            admission.release();
+            drainWaiting();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Arranca trabajos en espera mientras haya permisos. Si un permiso se libera justo despues de
+     * vaciar la cola, el siguiente submitAsync o la siguiente liberacion vuelven a drenarla.
+     */
+    private void drainWaiting() {
+        while (!waitingForPermit.isEmpty() && aiCalls.tryAcquire()) {
+            Runnable next = waitingForPermit.poll();
+            if (next == null) {
+                aiCalls.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private TooManyRequestsException saturated() {
+        return new TooManyRequestsException(
+            "Hay demasiadas recomendaciones en proceso. Intenta de nuevo en unos segundos.",
+            retryAfterSeconds
+        );
+    }
+}
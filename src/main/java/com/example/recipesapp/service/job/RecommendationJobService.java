@@ -1,44 +1,86 @@
 package com.example.recipesapp.service.job;
 
+import com.example.recipesapp.model.RecommendationJobStatus;
 import com.example.recipesapp.model.User;
 import com.example.recipesapp.service.CurrentUserService;
 import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
 import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.service.recommendation.CoalescingRecommendationEngine;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Crea y consulta jobs de recomendacion. Por defecto (app.recommendations.jobs.mode=memory) los jobs
+ * viven en RecommendationJobStore de este nodo; con mode=database se usa la cola persistente
+ * compartida y los ejecuta DatabaseRecommendationJobWorker en cualquier instancia.
+ */
 @Service
 public class RecommendationJobService {
 
-    public enum Status {
-        PENDING,
-        DONE,
-        ERROR
-    }
-
     public static final class JobResult {
         private final String jobId;
-        private volatile Status status;
+        private final Instant createdAt;
+        private volatile Instant completedAt;
+        private volatile RecommendationJobStatus status;
         private volatile List<RecommendationResponse> recommendations;
         private volatile String errorMessage;
+        // Se completa al pasar a DONE o ERROR; lo esperan las consultas long-poll.
+        private final CompletableFuture<JobResult> completion = new CompletableFuture<>();
 
         public JobResult(String jobId) {
+            this(jobId, Instant.now());
+        }
+
+        private JobResult(String jobId, Instant createdAt) {
             this.jobId = jobId;
-            this.status = Status.PENDING;
+            this.createdAt = createdAt;
+            this.status = RecommendationJobStatus.PENDING;
             this.recommendations = Collections.emptyList();
         }
 
+        /**
+         * Reconstruye el estado de un job leido de la cola persistente.
+         */
+        static JobResult restore(
+            String jobId,
+            RecommendationJobStatus status,
+            Instant createdAt,
+            Instant completedAt,
+            List<RecommendationResponse> recommendations,
+            String errorMessage
+        ) {
+            JobResult job = new JobResult(jobId, createdAt);
+            job.status = status;
+            job.completedAt = completedAt;
+            job.recommendations = recommendations;
+            job.errorMessage = errorMessage;
+            if (status != RecommendationJobStatus.PENDING) {
+                job.completion.complete(job);
+            }
+            return job;
+        }
+
         public String getJobId() {
             return jobId;
         }
 
-        public Status getStatus() {
+        public RecommendationJobStatus getStatus() {
             return status;
         }
 
@@ -50,49 +92,189 @@ public class RecommendationJobService {
             return errorMessage;
         }
 
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        public Instant getCompletedAt() {
+            return completedAt;
+        }
+
+        /**
+         * Future que se completa con este job cuando termina. Cada llamada devuelve una copia, asi
+         * que cancelarla o completarla no afecta a otros interesados.
+         */
+        public CompletableFuture<JobResult> completion() {
+            return completion.copy();
+        }
+
         private void markDone(List<RecommendationResponse> recs) {
             this.recommendations = recs;
-            this.status = Status.DONE;
+            this.completedAt = Instant.now();
+            this.status = RecommendationJobStatus.DONE;
+            completion.complete(this);
         }
 
         private void markError(String message) {
             this.errorMessage = message;
-            this.status = Status.ERROR;
+            this.completedAt = Instant.now();
+            this.status = RecommendationJobStatus.ERROR;
+            completion.complete(this);
         }
     }
 
+    // Las relecturas de la cola persistente durante un long-poll no ocupan hilos de plataforma.
+    private static final Executor LONG_POLL_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     private final RecommendationService recommendationService;
     private final CurrentUserService currentUserService;
-    private final Map<String, JobResult> jobs = new ConcurrentHashMap<>();
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final RecommendationJobStore jobStore;
+    // Jobs pendientes por usuario + huella de despensa, para no lanzar dos veces la misma llamada a la IA.
+    private final Map<String, JobResult> pendingByPantry = new ConcurrentHashMap<>();
+    private final RecommendationJobExecutor executor;
+    private final RecommendationRateLimiter rateLimiter;
+    // Null en modo memory.
+    private final DatabaseRecommendationJobStore databaseStore;
+    private final Duration longPollMaxWait;
+    private final long databaseRecheckMillis;
 
     public RecommendationJobService(
         RecommendationService recommendationService,
-        CurrentUserService currentUserService
+        CurrentUserService currentUserService,
+        RecommendationJobExecutor executor,
+        RecommendationJobStore jobStore,
+        RecommendationRateLimiter rateLimiter,
+        ObjectProvider<DatabaseRecommendationJobStore> databaseStore,
+        @Value("${app.recommendations.jobs.long-poll.max-wait:25s}") Duration longPollMaxWait,
+        @Value("${app.recommendations.jobs.long-poll.database-recheck:1s}") Duration databaseRecheck
     ) {
         this.recommendationService = recommendationService;
         this.currentUserService = currentUserService;
+        this.executor = executor;
+        this.jobStore = jobStore;
+        this.rateLimiter = rateLimiter;
+        this.databaseStore = databaseStore.getIfAvailable();
+        this.longPollMaxWait = longPollMaxWait;
+        this.databaseRecheckMillis = Math.max(100, databaseRecheck.toMillis());
     }
 
+    /**
+     * Crea un job de recomendacion o, si ya hay uno pendiente para la misma despensa del usuario,
+     * devuelve ese mismo job (sin consumir cuota de rate limit).
+     */
     public JobResult createJob() {
         User user = currentUserService.getCurrentUser();
-        String jobId = UUID.randomUUID().toString();
-        JobResult job = new JobResult(jobId);
-        jobs.put(jobId, job);
-
-        executor.submit(() -> {
-            try {
-                List<RecommendationResponse> recs = recommendationService.generateRecommendationsForUser(user);
-                job.markDone(recs);
-            } catch (Exception ex) {
-                job.markError(ex.getMessage());
+        PantrySnapshot pantry = recommendationService.loadPantrySnapshot(user);
+        String coalescingKey = CoalescingRecommendationEngine.coalescingKey(pantry);
+        if (databaseStore != null) {
+            Optional<JobResult> pendingJob = databaseStore.findPending(coalescingKey);
+            if (pendingJob.isPresent()) {
+                return pendingJob.get();
             }
-        });
+            acquireUnlessCached(user, pantry);
+            return databaseStore.create(pantry, coalescingKey);
+        }
+        JobResult existing = pendingByPantry.get(coalescingKey);
+        if (existing != null) {
+            return existing;
+        }
+        boolean charged = acquireUnlessCached(user, pantry);
 
+        JobResult job = new JobResult(UUID.randomUUID().toString());
+        JobResult pending = pendingByPantry.putIfAbsent(coalescingKey, job);
+        if (pending != null) {
+            releaseIfCharged(user, charged);
+            return pending;
+        }
+
+        jobStore.add(job);
+        try {
+            executor.submitAsync(() -> recommendationService.generateRecommendationsAsync(pantry))
+                .whenComplete((recs, error) -> completeJob(job, coalescingKey, recs, error));
+        } catch (RuntimeException ex) {
+            jobStore.remove(job);
+            pendingByPantry.remove(coalescingKey, job);
+            // No se admitio (cola llena): el 429 no debe costarle el token al usuario.
+            releaseIfCharged(user, charged);
+            throw ex;
+        }
         return job;
     }
 
+    /**
+     * Devuelve el job o null si no existe; lanza ResourceExpiredException si ya expiro.
+     */
     public JobResult getJob(String jobId) {
-        return jobs.get(jobId);
+        return databaseStore != null ? databaseStore.find(jobId) : jobStore.find(jobId);
+    }
+
+    /**
+     * Espera acotada a max-wait solicitada por un long-poll.
+     */
+    public Duration longPollWait(long waitMillis) {
+        return Duration.ofMillis(Math.max(0, Math.min(waitMillis, longPollMaxWait.toMillis())));
+    }
+
+    /**
+     * Long-poll: el future se completa con el job en cuanto pasa a DONE o ERROR, o con su estado
+     * PENDING al agotarse wait. Se completa con null si el job no existe y falla con
+     * ResourceExpiredException si ya expiro. En modo memory lo completa el propio job; en modo
+     * database el resultado lo escribe otro nodo, asi que se relee cada database-recheck.
+     */
+    public CompletableFuture<JobResult> awaitJob(String jobId, Duration wait) {
+        JobResult job = getJob(jobId);
+        if (job == null || job.getStatus() != RecommendationJobStatus.PENDING || wait.isZero()) {
+            return CompletableFuture.completedFuture(job);
+        }
+        if (databaseStore != null) {
+            return recheck(jobId, job, System.nanoTime() + wait.toNanos());
+        }
+        return job.completion().completeOnTimeout(job, wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<JobResult> recheck(String jobId, JobResult current, long deadlineNanos) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (current == null || current.getStatus() != RecommendationJobStatus.PENDING || remainingMillis <= 0) {
+            return CompletableFuture.completedFuture(current);
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(
+            Math.min(databaseRecheckMillis, remainingMillis), TimeUnit.MILLISECONDS, LONG_POLL_EXECUTOR
+        );
+        return CompletableFuture.supplyAsync(() -> databaseStore.find(jobId), delayed)
+            .thenCompose(next -> recheck(jobId, next, deadlineNanos));
+    }
+
+    /**
+     * Se invoca al completarse el future del job; ningun hilo queda esperando a la IA mientras tanto.
+     */
+    private void completeJob(JobResult job, String coalescingKey, List<RecommendationResponse> recs, Throwable error) {
+        try {
+            if (error == null) {
+                job.markDone(recs);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                job.markError(cause.getMessage());
+            }
+        } finally {
+            pendingByPantry.remove(coalescingKey, job);
+            jobStore.completed(job);
+        }
+    }
+
+    /**
+     * Un job que se resolvera desde la cache no llama a la IA: no consume cuota. Devuelve si cobro.
+     */
+    private boolean acquireUnlessCached(User user, PantrySnapshot pantry) {
+        if (recommendationService.hasCachedRecommendations(pantry)) {
+            return false;
+        }
+        rateLimiter.acquire(user.getId());
+        return true;
+    }
+
+    private void releaseIfCharged(User user, boolean charged) {
+        if (charged) {
+            rateLimiter.release(user.getId());
+        }
     }
 }
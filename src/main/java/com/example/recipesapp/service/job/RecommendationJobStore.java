@@ -0,0 +1,220 @@
+package com.example.recipesapp.service.job;
+
+import com.example.recipesapp.exception.ResourceExpiredException;
+import com.example.recipesapp.service.job.RecommendationJobService.JobResult;
+import com.example.recipesapp.service.recommendation.RecommendationSizeEstimator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacen en memoria de jobs de recomendacion con expiracion por estado y limite de entradas/bytes.
+ * Un barrido periodico descarta los jobs vencidos; si se supera el limite se desalojan primero los
+ * jobs terminados mas antiguos. Los ids desalojados se recuerdan (acotados) para responder 410 Gone.
+ */
+@Component
+public class RecommendationJobStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationJobStore.class);
+    private static final int MAX_TOMBSTONES = 10_000;
+
+    private final Map<String, JobResult> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Long> accountedBytes = new ConcurrentHashMap<>();
+    // Orden de finalizacion: la cabeza es siempre el job terminado mas antiguo.
+    private final Queue<JobResult> finishedInOrder = new ConcurrentLinkedQueue<>();
+    private final Set<String> tombstones = Collections.newSetFromMap(Collections.synchronizedMap(
+        new LinkedHashMap<String, Boolean>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_TOMBSTONES;
+            }
+        }
+    ));
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final Duration pendingTtl;
+    private final Duration doneTtl;
+    private final Duration errorTtl;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long sweepIntervalMillis;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().daemon().name("recommendation-job-sweeper").factory()
+    );
+
+    public RecommendationJobStore(
+        MeterRegistry meterRegistry,
+        @Value("${app.recommendations.jobs.store.pending-ttl:15m}") Duration pendingTtl,
+        @Value("${app.recommendations.jobs.store.done-ttl:10m}") Duration doneTtl,
+        @Value("${app.recommendations.jobs.store.error-ttl:2m}") Duration errorTtl,
+        @Value("${app.recommendations.jobs.store.max-entries:10000}") int maxEntries,
+        @Value("${app.recommendations.jobs.store.max-bytes:67108864}") long maxBytes,
+        @Value("${app.recommendations.jobs.store.sweep-interval:30s}") Duration sweepInterval
+    ) {
+        this.pendingTtl = pendingTtl;
+        this.doneTtl = doneTtl;
+        this.errorTtl = errorTtl;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.sweepIntervalMillis = Math.max(1000, sweepInterval.toMillis());
+
+        Gauge.builder("recommendation.jobs.store.size", jobs, Map::size)
+            .description("Jobs de recomendacion retenidos en memoria")
+            .register(meterRegistry);
+        Gauge.builder("recommendation.jobs.store.bytes", storedBytes, AtomicLong::get)
+            .description("Bytes estimados de resultados retenidos en el almacen de jobs")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public void add(JobResult job) {
+        jobs.put(job.getJobId(), job);
+        enforceLimits();
+    }
+
+    public void remove(JobResult job) {
+        jobs.remove(job.getJobId(), job);
+    }
+
+    /**
+     * Contabiliza el resultado de un job recien terminado y desaloja si se superan los limites.
+     */
+    public void completed(JobResult job) {
+        long bytes = estimateBytes(job);
+        // computeIfPresent serializa con evict() para la misma clave: los bytes se suman y restan una sola vez.
+        jobs.computeIfPresent(job.getJobId(), (jobId, current) -> {
+            if (current == job && accountedBytes.putIfAbsent(jobId, bytes) == null) {
+                storedBytes.addAndGet(bytes);
+                finishedInOrder.add(job);
+            }
+            return current;
+        });
+        enforceLimits();
+    }
+
+    /**
+     * Devuelve el job o null si nunca existio; lanza ResourceExpiredException si ya fue descartado.
+     */
+    public JobResult find(String jobId) {
+        JobResult job = jobs.get(jobId);
+        if (job != null) {
+            if (!isExpired(job, Instant.now())) {
+                return job;
+            }
+            evict(job);
+        }
+        if (tombstones.contains(jobId)) {
+            throw new ResourceExpiredException("El job " + jobId + " expiro y sus resultados ya no estan disponibles");
+        }
+        return null;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * El barrido arranca con la aplicacion lista y no en el constructor, para no publicar this
+     * a otro hilo antes de que el objeto este completamente construido.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeper() {
+        sweeper.scheduleWithFixedDelay(this::sweepExpired, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    void sweepExpired() {
+        try {
+            Instant now = Instant.now();
+            int evicted = 0;
+            for (JobResult job : jobs.values()) {
+                if (isExpired(job, now) && evict(job)) {
+                    evicted++;
+                }
+            }
+            trimFinishedQueue();
+            if (evicted > 0) {
+                LOGGER.debug("Barrido de jobs: {} expirados, {} restantes", evicted, jobs.size());
+            }
+        } catch (RuntimeException ex) {
+            // Una excepcion cancelaria el barrido programado; se registra y se sigue.
+            LOGGER.warn("Fallo el barrido de jobs de recomendacion expirados", ex);
+        }
+    }
+
+    private void enforceLimits() {
+        while (jobs.size() > maxEntries || storedBytes.get() > maxBytes) {
+            JobResult oldest = finishedInOrder.poll();
+            if (oldest == null) {
+                // Solo quedan jobs pendientes; ya los acota la admision de RecommendationJobExecutor.
+                return;
+            }
+            evict(oldest);
+        }
+    }
+
+    private boolean evict(JobResult job) {
+        boolean[] removed = {false};
+        jobs.computeIfPresent(job.getJobId(), (jobId, current) -> {
+            if (current != job) {
+                return current;
+            }
+            Long bytes = accountedBytes.remove(jobId);
+            if (bytes != null) {
+                storedBytes.addAndGet(-bytes);
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            tombstones.add(job.getJobId());
+        }
+        return removed[0];
+    }
+
+    /**
+     * Suelta las referencias a jobs ya desalojados que quedaron al frente de la cola de terminados,
+     * para no retener sus resultados en memoria.
+     */
+    private void trimFinishedQueue() {
+        JobResult head;
+        while ((head = finishedInOrder.peek()) != null && jobs.get(head.getJobId()) != head) {
+            finishedInOrder.remove(head);
+        }
+    }
+
+    private long estimateBytes(JobResult job) {
+        long errorBytes = job.getErrorMessage() != null ? 2L * job.getErrorMessage().length() : 0;
+        return RecommendationSizeEstimator.estimateBytes(job.getRecommendations()) + errorBytes;
+    }
+
+    private boolean isExpired(JobResult job, Instant now) {
+        return switch (job.getStatus()) {
+            case PENDING -> job.getCreatedAt().plus(pendingTtl).isBefore(now);
+            case DONE -> job.getCompletedAt().plus(doneTtl).isBefore(now);
+            case ERROR -> job.getCompletedAt().plus(errorTtl).isBefore(now);
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.recipesapp.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Punto unico de instrumentacion del pipeline de recomendaciones. Los timers publican histogramas
+ * (buckets de Prometheus en /actuator/prometheus), asi que los percentiles se calculan agregando
+ * todas las instancias en lugar de promediar percentiles locales.
+ */
+@Component
+public class RecommendationMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer promptBuild;
+    private final Timer parse;
+    private final Timer recipeIdValidation;
+    private final Timer save;
+    private final DistributionSummary promptSize;
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary responseSize;
+    private final Counter parseAttempts;
+    private final Counter parseFailures;
+    private final Counter emptyResults;
+
+    public RecommendationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.promptBuild = histogramTimer("recommendation.prompt.build", "Construccion del prompt");
+        this.parse = histogramTimer("recommendation.response.parse", "Saneado e interpretacion de la respuesta de la IA");
+        this.recipeIdValidation = histogramTimer("recommendation.recipe.validation", "Validacion de recipeId contra el catalogo");
+        this.save = histogramTimer("recommendation.save", "Guardado de una recomendacion como receta");
+        this.promptSize = DistributionSummary.builder("recommendation.prompt.size")
+            .description("Longitud del prompt enviado a la IA")
+            .baseUnit("characters")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.promptTokens = DistributionSummary.builder("recommendation.prompt.tokens")
+            .description("Tokens estimados del prompt enviado a la IA")
+            .baseUnit("tokens")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.responseSize = DistributionSummary.builder("recommendation.response.size")
+            .description("Longitud del texto devuelto por la IA")
+            .baseUnit("characters")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.parseAttempts = Counter.builder("recommendation.parse.attempts")
+            .description("Respuestas o fragmentos de la IA que se intentaron interpretar")
+            .register(registry);
+        this.parseFailures = Counter.builder("recommendation.parse.failures")
+            .description("Respuestas o fragmentos de la IA que no se pudieron interpretar")
+            .register(registry);
+        this.emptyResults = Counter.builder("recommendation.empty.results")
+            .description("Respuestas de la IA interpretadas sin ninguna receta")
+            .register(registry);
+    }
+
+    private Timer histogramTimer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    public <T> T recordPromptBuild(Supplier<T> step) {
+        return promptBuild.record(step);
+    }
+
+    public <T> T recordParse(Supplier<T> step) {
+        return parse.record(step);
+    }
+
+    public <T> T recordRecipeIdValidation(Supplier<T> step) {
+        return recipeIdValidation.record(step);
+    }
+
+    public <T> T recordSave(Supplier<T> step) {
+        return save.record(step);
+    }
+
+    /**
+     * Registra una llamada al proveedor de IA. status es el codigo HTTP de la respuesta o 0 si no la hubo.
+     */
+    public void recordAiCall(String mode, long elapsedNanos, boolean success, int status) {
+        Timer.builder("recommendation.ai.call")
+            .description("Llamadas al proveedor de IA")
+            .tags("mode", mode, "outcome", success ? "success" : "error", "status", status > 0 ? String.valueOf(status) : "none")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPromptSize(int characters) {
+        promptSize.record(characters);
+    }
+
+    public void recordPromptTokens(int tokens) {
+        promptTokens.record(tokens);
+    }
+
+    public void recordResponseSize(int characters) {
+        responseSize.record(characters);
+    }
+
+    /**
+     * Junto con parseFailure da la tasa de fallos de interpretacion:
+     * rate(recommendation_parse_failures_total) / rate(recommendation_parse_attempts_total).
+     */
+    public void parseAttempt() {
+        parseAttempts.increment();
+    }
+
+    public void parseFailure() {
+        parseFailures.increment();
+    }
+
+    public void emptyResult() {
+        emptyResults.increment();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.recipesapp.service.ratelimit;
+
+import com.example.recipesapp.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limita cuantas generaciones de recomendaciones (posibles llamadas pagadas a la IA) puede pedir
+ * cada usuario y el despliegue completo. Usa un TokenBucket por usuario, guardado en una cache
+ * que desaloja los inactivos, y uno global; al superar cualquiera se lanza TooManyRequestsException
+ * (HTTP 429 con Retry-After). El trabajo en segundo plano (precalculo) tiene su propio bucket de
+ * sistema y nunca consume la cuota del usuario.
+ */
+@Component
+public class RecommendationRateLimiter {
+
+    private final boolean enabled;
+    private final int userCapacity;
+    private final Duration userRefillInterval;
+    private final Cache<Long, TokenBucket> userBuckets;
+    private final TokenBucket globalBucket;
+    private final TokenBucket backgroundBucket;
+
+    public RecommendationRateLimiter(
+        @Value("${app.recommendations.rate-limit.enabled:true}") boolean enabled,
+        @Value("${app.recommendations.rate-limit.user.capacity:5}") int userCapacity,
+        @Value("${app.recommendations.rate-limit.user.refill-interval:12s}") Duration userRefillInterval,
+        @Value("${app.recommendations.rate-limit.global.capacity:50}") int globalCapacity,
+        @Value("${app.recommendations.rate-limit.global.refill-interval:200ms}") Duration globalRefillInterval,
+        @Value("${app.recommendations.rate-limit.background.capacity:20}") int backgroundCapacity,
+        @Value("${app.recommendations.rate-limit.background.refill-interval:3s}") Duration backgroundRefillInterval,
+        @Value("${app.recommendations.rate-limit.idle-eviction:10m}") Duration idleEviction,
+        @Value("${app.recommendations.rate-limit.max-users:100000}") long maxUsers
+    ) {
+        this.enabled = enabled;
+        this.userCapacity = userCapacity;
+        this.userRefillInterval = userRefillInterval;
+        // Un bucket inactivo durante mas de capacity * refill-interval ya esta lleno: descartarlo
+        // y crearlo de nuevo es equivalente, asi la memoria solo crece con los usuarios activos.
+        this.userBuckets = Caffeine.newBuilder()
+            .expireAfterAccess(idleEviction)
+            .maximumSize(maxUsers)
+            .build();
+        this.globalBucket = new TokenBucket(globalCapacity, globalRefillInterval);
+        this.backgroundBucket = new TokenBucket(backgroundCapacity, backgroundRefillInterval);
+    }
+
+    public void acquire(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        TokenBucket userBucket = userBucket(userId);
+        long userWait = userBucket.tryAcquire();
+        if (userWait > 0) {
+            throw new TooManyRequestsException(
+                "Has alcanzado el limite de recomendaciones. Intenta de nuevo en unos segundos.",
+                retryAfterSeconds(userWait)
+            );
+        }
+        long globalWait = globalBucket.tryAcquire();
+        if (globalWait > 0) {
+            userBucket.refund();
+            throw new TooManyRequestsException(
+                "El servicio de recomendaciones esta saturado. Intenta de nuevo en unos segundos.",
+                retryAfterSeconds(globalWait)
+            );
+        }
+    }
+
+    /**
+     * Devuelve los tokens de un acquire cuya peticion no llego a admitirse (p. ej. la cola de
+     * generacion estaba llena), para que un 429 del executor no consuma la cuota del usuario.
+     */
+    public void release(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        userBucket(userId).refund();
+        globalBucket.refund();
+    }
+
+    /**
+     * Para trabajo especulativo sin un usuario esperando, como el precalculo: consume del bucket de
+     * sistema y del global, nunca del usuario, y devuelve false (sin excepcion) si no hay tokens.
+     */
+    public boolean tryAcquireBackground() {
+        if (!enabled) {
+            return true;
+        }
+        if (backgroundBucket.tryAcquire() > 0) {
+            return false;
+        }
+        if (globalBucket.tryAcquire() > 0) {
+            backgroundBucket.refund();
+            return false;
+        }
+        return true;
+    }
+
+    private TokenBucket userBucket(Long userId) {
+        return userBuckets.get(userId, id -> new TokenBucket(userCapacity, userRefillInterval));
+    }
+
+    private long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.recipesapp.service.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin locks. El estado es un unico AtomicLong con el "tiempo teorico de llegada"
+ * (formulacion GCRA, equivalente a un token bucket de capacidad fija que recupera un token cada
+ * refill-interval): consumir un token es un compareAndSet que lo adelanta un intervalo, por lo
+ * que no hay objetos nuevos ni bloqueos en el camino caliente.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, Duration refillInterval) {
+        this.intervalNanos = Math.max(1, refillInterval.toNanos());
+        this.burstToleranceNanos = intervalNanos * (Math.max(1, capacity) - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Consume un token; devuelve 0 si se concedio o los nanosegundos que faltan para el siguiente.
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = current - now > 0 ? current : now;
+            long waitNanos = start - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un token consumido cuando otro limite posterior rechazo la misma peticion.
+     */
+    public void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.ai.AiClient;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Motor base: intenta primero el catalogo local y, si no alcanza, construye el prompt,
+ * consulta al proveedor de IA y convierte su respuesta JSON en recomendaciones.
+ * En modo fan-out lanza fan-out.calls llamadas concurrentes de una receta cada una (con enfoques
+ * distintos), descarta duplicados y responde en cuanto llegan fan-out.quorum recetas; las
+ * llamadas que siguen en curso se cancelan.
+ */
+@Component("aiRecommendationEngine")
+public class AiRecommendationEngine implements RecommendationEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AiRecommendationEngine.class);
+    // El parseo valida recipeId contra la base de datos: no debe correr en el hilo del HttpClient.
+    private static final Executor PARSE_EXECUTOR = task -> Thread.ofVirtual().name("recommendation-parse").start(task);
+
+    private final LocalRecipeMatcher localRecipeMatcher;
+    private final RecommendationPromptBuilder promptBuilder;
+    private final RecommendationResponseParser responseParser;
+    // Strategy pattern: AiClient permite intercambiar proveedores de IA sin tocar este motor.
+    private final AiClient aiClient;
+    private final RecommendationMetrics metrics;
+    private final boolean fanOut;
+    private final int fanOutCalls;
+    private final int fanOutQuorum;
+
+    public AiRecommendationEngine(
+        LocalRecipeMatcher localRecipeMatcher,
+        RecommendationPromptBuilder promptBuilder,
+        RecommendationResponseParser responseParser,
+        AiClient aiClient,
+        RecommendationMetrics metrics,
+        @Value("${app.recommendations.fan-out.enabled:false}") boolean fanOut,
+        @Value("${app.recommendations.fan-out.calls:4}") int fanOutCalls,
+        @Value("${app.recommendations.fan-out.quorum:3}") int fanOutQuorum
+    ) {
+        this.localRecipeMatcher = localRecipeMatcher;
+        this.promptBuilder = promptBuilder;
+        this.responseParser = responseParser;
+        this.aiClient = aiClient;
+        this.metrics = metrics;
+        this.fanOut = fanOut;
+        this.fanOutCalls = Math.max(1, fanOutCalls);
+        this.fanOutQuorum = Math.max(1, Math.min(this.fanOutCalls, fanOutQuorum));
+    }
+
+    @Override
+    public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+        // El catalogo local responde en milisegundos; solo se consulta a Gemini si no alcanza la cobertura.
+        List<RecommendationResponse> localMatches = localRecipeMatcher.findConfidentMatches(pantry);
+        if (!localMatches.isEmpty()) {
+            LOGGER.debug("Se resolvieron {} recomendaciones desde el catalogo local", localMatches.size());
+            return localMatches;
+        }
+        if (fanOut) {
+            try {
+                return fanOut(pantry).join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw ex;
+            }
+        }
+
+        String prompt = promptBuilder.build(pantry.items());
+        LOGGER.debug("Gemini prompt: {}", prompt);
+
+        return toRecommendations(aiClient.generateContent(prompt));
+    }
+
+    @Override
+    public CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+        List<RecommendationResponse> localMatches = localRecipeMatcher.findConfidentMatches(pantry);
+        if (!localMatches.isEmpty()) {
+            LOGGER.debug("Se resolvieron {} recomendaciones desde el catalogo local", localMatches.size());
+            return CompletableFuture.completedFuture(localMatches);
+        }
+        if (fanOut) {
+            return fanOut(pantry);
+        }
+
+        String prompt = promptBuilder.build(pantry.items());
+        LOGGER.debug("Gemini prompt: {}", prompt);
+        return aiClient.generateContentAsync(prompt).thenApplyAsync(this::toRecommendations, PARSE_EXECUTOR);
+    }
+
+    /**
+     * Lee la respuesta de la IA por fragmentos y entrega cada receta en cuanto se cierra su objeto
+     * JSON. El fan-out no aplica: el stream es una unica llamada.
+     */
+    @Override
+    public List<RecommendationResponse> recommendStreaming(
+        PantrySnapshot pantry,
+        Consumer<RecommendationResponse> onRecommendation
+    ) {
+        List<RecommendationResponse> localMatches = localRecipeMatcher.findConfidentMatches(pantry);
+        if (!localMatches.isEmpty()) {
+            LOGGER.debug("Se resolvieron {} recomendaciones desde el catalogo local", localMatches.size());
+            localMatches.forEach(onRecommendation);
+            return localMatches;
+        }
+
+        String prompt = promptBuilder.build(pantry.items());
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+        List<RecommendationResponse> recommendations = new ArrayList<>();
+        aiClient.streamContent(prompt, chunk -> {
+            for (String objectJson : splitter.feed(chunk)) {
+                RecommendationResponse recommendation = responseParser.parseObject(objectJson);
+                if (recommendation != null) {
+                    recommendations.add(recommendation);
+                    onRecommendation.accept(recommendation);
+                }
+            }
+        });
+        if (recommendations.isEmpty()) {
+            metrics.emptyResult();
+            throw new AiServiceException("La API de Gemini no devolvio recetas en la respuesta.");
+        }
+        return recommendations;
+    }
+
+    private CompletableFuture<List<RecommendationResponse>> fanOut(PantrySnapshot pantry) {
+        CompletableFuture<List<RecommendationResponse>> result = new CompletableFuture<>();
+        FanOutMerge merge = new FanOutMerge(fanOutCalls, fanOutQuorum);
+        List<CompletableFuture<String>> calls = new ArrayList<>(fanOutCalls);
+        for (int i = 0; i < fanOutCalls; i++) {
+            String prompt = promptBuilder.buildSingle(pantry.items(), i, fanOutCalls);
+            CompletableFuture<String> call = aiClient.generateContentAsync(prompt);
+            calls.add(call);
+            call.thenApplyAsync(responseParser::parse, PARSE_EXECUTOR)
+                .whenComplete((recommendations, error) -> merge.accept(recommendations, error, result));
+        }
+        // Alcanzado el quorum (o fallado todo) las llamadas pendientes ya no aportan nada. Se cancela
+        // el future de generateContentAsync: cancelar la etapa de parseo derivada no llega al AiClient
+        // y la peticion HTTP seguiria ocupando su permiso hasta terminar.
+        result.whenComplete((recommendations, error) -> calls.forEach(call -> call.cancel(true)));
+        return result.thenApply(merged -> {
+            if (merged.isEmpty()) {
+                metrics.emptyResult();
+                throw new AiServiceException("La API de Gemini no devolvio recetas en la respuesta.");
+            }
+            LOGGER.debug("Fan-out resuelto con {} recetas de {} llamadas", merged.size(), fanOutCalls);
+            return merged;
+        });
+    }
+
+    private List<RecommendationResponse> toRecommendations(String rawResponse) {
+        List<RecommendationResponse> parsed = responseParser.parse(rawResponse);
+        if (parsed.isEmpty()) {
+            metrics.emptyResult();
+            throw new AiServiceException("La API de Gemini no devolvio recetas en la respuesta.");
+        }
+        return parsed;
+    }
+
+    /**
+     * Acumula las recetas del fan-out descartando duplicados (mismo recipeId o mismo titulo
+     * normalizado) y completa el resultado con el quorum o cuando terminaron todas las llamadas.
+     */
+    private static final class FanOutMerge {
+
+        private final int expected;
+        private final int quorum;
+        private final List<RecommendationResponse> merged = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+        private int finished;
+        private Throwable lastError;
+
+        FanOutMerge(int expected, int quorum) {
+            this.expected = expected;
+            this.quorum = quorum;
+        }
+
+        synchronized void accept(
+            List<RecommendationResponse> recommendations,
+            Throwable error,
+            CompletableFuture<List<RecommendationResponse>> result
+        ) {
+            finished++;
+            if (error != null) {
+                lastError = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            } else {
+                for (RecommendationResponse recommendation : recommendations) {
+                    String titleKey = RecommendationPromptBuilder.normalizeName(recommendation.title());
+                    String idKey = recommendation.recipeId() != null ? "#" + recommendation.recipeId() : null;
+                    if (seen.contains(titleKey) || (idKey != null && seen.contains(idKey))) {
+                        continue;
+                    }
+                    seen.add(titleKey);
+                    if (idKey != null) {
+                        seen.add(idKey);
+                    }
+                    merged.add(recommendation);
+                }
+            }
+            if (merged.size() >= quorum || finished == expected) {
+                if (merged.isEmpty() && lastError != null) {
+                    result.completeExceptionally(lastError);
+                } else {
+                    result.complete(List.copyOf(merged));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: reutiliza recomendaciones de despensas equivalentes antes de delegar al motor real.
+ * Lo usan el endpoint sincrono, RecommendationJobService y el stream SSE.
+ */
+@Component("cachingRecommendationEngine")
+public class CachingRecommendationEngine implements RecommendationEngine {
+
+    private final RecommendationEngine delegate;
+    private final RecommendationCache cache;
+    private final boolean enabled;
+
+    public CachingRecommendationEngine(
+        @Qualifier("fallbackRecommendationEngine") RecommendationEngine delegate,
+        RecommendationCache cache,
+        @Value("${app.recommendations.cache.enabled:true}") boolean enabled
+    ) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+        if (!enabled) {
+            return delegate.recommend(pantry);
+        }
+        Optional<List<RecommendationResponse>> cached = cache.get(pantry.fingerprint());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<RecommendationResponse> recommendations = delegate.recommend(pantry);
+        cache.put(pantry.fingerprint(), recommendations);
+        return recommendations;
+    }
+
+    @Override
+    public List<RecommendationResponse> recommendStreaming(
+        PantrySnapshot pantry,
+        Consumer<RecommendationResponse> onRecommendation
+    ) {
+        if (!enabled) {
+            return delegate.recommendStreaming(pantry, onRecommendation);
+        }
+        Optional<List<RecommendationResponse>> cached = cache.get(pantry.fingerprint());
+        if (cached.isPresent()) {
+            cached.get().forEach(onRecommendation);
+            return cached.get();
+        }
+        List<RecommendationResponse> recommendations = delegate.recommendStreaming(pantry, onRecommendation);
+        cache.put(pantry.fingerprint(), recommendations);
+        return recommendations;
+    }
+
+    @Override
+    public Optional<List<RecommendationResponse>> cached(PantrySnapshot pantry) {
+        return enabled ? cache.get(pantry.fingerprint()) : Optional.empty();
+    }
+
+    @Override
+    public CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+        if (!enabled) {
+            return delegate.recommendAsync(pantry);
+        }
+        Optional<List<RecommendationResponse>> cached = cache.get(pantry.fingerprint());
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return delegate.recommendAsync(pantry).thenApply(recommendations -> {
+            cache.put(pantry.fingerprint(), recommendations);
+            return recommendations;
+        });
+    }
+}
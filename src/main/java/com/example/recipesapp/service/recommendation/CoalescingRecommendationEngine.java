@@ -0,0 +1,67 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: si el mismo usuario ya tiene en curso una recomendacion para una despensa
+ * equivalente (doble clic, reintento del SPA, job + GET sincrono), espera ese resultado en vez
+ * de lanzar otra llamada a la IA.
+ */
+@Component
+@Primary
+public class CoalescingRecommendationEngine implements RecommendationEngine {
+
+    private final RecommendationEngine delegate;
+    private final SingleFlight<String, List<RecommendationResponse>> singleFlight = new SingleFlight<>();
+
+    public CoalescingRecommendationEngine(@Qualifier("cachingRecommendationEngine") RecommendationEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+        return singleFlight.execute(coalescingKey(pantry), () -> delegate.recommend(pantry));
+    }
+
+    @Override
+    public CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+        return singleFlight.executeAsync(coalescingKey(pantry), () -> delegate.recommendAsync(pantry));
+    }
+
+    /**
+     * Un stream y un GET de la misma despensa comparten la llamada: si el stream llega segundo
+     * recibe la lista completa de una vez al terminar la primera.
+     */
+    @Override
+    public List<RecommendationResponse> recommendStreaming(
+        PantrySnapshot pantry,
+        Consumer<RecommendationResponse> onRecommendation
+    ) {
+        AtomicBoolean led = new AtomicBoolean();
+        List<RecommendationResponse> recommendations = singleFlight.execute(coalescingKey(pantry), () -> {
+            led.set(true);
+            return delegate.recommendStreaming(pantry, onRecommendation);
+        });
+        if (!led.get()) {
+            recommendations.forEach(onRecommendation);
+        }
+        return recommendations;
+    }
+
+    @Override
+    public Optional<List<RecommendationResponse>> cached(PantrySnapshot pantry) {
+        return delegate.cached(pantry);
+    }
+
+    public static String coalescingKey(PantrySnapshot pantry) {
+        return pantry.userId() + ":" + pantry.fingerprint();
+    }
+}
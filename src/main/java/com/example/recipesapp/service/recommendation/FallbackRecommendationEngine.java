@@ -0,0 +1,190 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decorator pattern: pone un techo duro a la latencia del motor de IA. Si el motor falla con
+ * AiServiceException o no responde dentro de deadline, se cancela y se responde con las recetas
+ * del catalogo que mejor cubren la despensa, calculadas en proceso con un presupuesto de
+ * local-budget. Esas recetas se marcan con fallback=true y no se guardan en la cache.
+ * Si el catalogo tampoco tiene coincidencias se propaga el error original.
+ * En la variante asincrona el deadline se aplica con orTimeout, sin un hilo esperando.
+ */
+@Component("fallbackRecommendationEngine")
+public class FallbackRecommendationEngine implements RecommendationEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FallbackRecommendationEngine.class);
+
+    private final RecommendationEngine delegate;
+    private final LocalRecipeMatcher localRecipeMatcher;
+    private final boolean enabled;
+    private final long deadlineMillis;
+    private final long localBudgetMillis;
+    private final int maxResults;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("recommendation-fallback-", 0).factory()
+    );
+
+    public FallbackRecommendationEngine(
+        @Qualifier("aiRecommendationEngine") RecommendationEngine delegate,
+        LocalRecipeMatcher localRecipeMatcher,
+        @Value("${app.recommendations.fallback.enabled:true}") boolean enabled,
+        @Value("${app.recommendations.fallback.deadline:12s}") Duration deadline,
+        @Value("${app.recommendations.fallback.local-budget:50ms}") Duration localBudget,
+        @Value("${app.recommendations.fallback.max-results:3}") int maxResults
+    ) {
+        this.delegate = delegate;
+        this.localRecipeMatcher = localRecipeMatcher;
+        this.enabled = enabled;
+        this.deadlineMillis = deadline.toMillis();
+        this.localBudgetMillis = localBudget.toMillis();
+        this.maxResults = Math.max(1, maxResults);
+    }
+
+    @Override
+    public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+        if (!enabled) {
+            return delegate.recommend(pantry);
+        }
+        Future<List<RecommendationResponse>> primary = executor.submit(() -> delegate.recommend(pantry));
+        try {
+            return primary.get(deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            primary.cancel(true);
+            LOGGER.warn("El motor de IA no respondio en {} ms; se usa el recomendador local", deadlineMillis);
+            return fallbackOrThrow(pantry, new AiServiceException("La API de Gemini no respondio a tiempo.", ex));
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof AiServiceException aiFailure) {
+                LOGGER.warn("El motor de IA fallo ({}); se usa el recomendador local", aiFailure.getMessage());
+                return fallbackOrThrow(pantry, aiFailure);
+            }
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            primary.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("La generacion de recomendaciones fue interrumpida.", ex);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+        if (!enabled) {
+            return delegate.recommendAsync(pantry);
+        }
+        CompletableFuture<List<RecommendationResponse>> primary;
+        try {
+            primary = delegate.recommendAsync(pantry);
+        } catch (RuntimeException ex) {
+            primary = CompletableFuture.failedFuture(ex);
+        }
+        return primary
+            .orTimeout(deadlineMillis, TimeUnit.MILLISECONDS)
+            .exceptionallyComposeAsync(error -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    LOGGER.warn("El motor de IA no respondio en {} ms; se usa el recomendador local", deadlineMillis);
+                    return CompletableFuture.completedFuture(fallbackOrThrow(
+                        pantry, new AiServiceException("La API de Gemini no respondio a tiempo.", cause)
+                    ));
+                }
+                if (cause instanceof AiServiceException aiFailure) {
+                    LOGGER.warn("El motor de IA fallo ({}); se usa el recomendador local", aiFailure.getMessage());
+                    return CompletableFuture.completedFuture(fallbackOrThrow(pantry, aiFailure));
+                }
+                return CompletableFuture.failedFuture(cause);
+            }, executor);
+    }
+
+    /**
+     * En streaming no hay deadline: el stream tiene su propio timeout y va entregando recetas. Si la
+     * IA falla antes de entregar ninguna se responde con el catalogo local; si ya entrego alguna,
+     * mezclarlas no tendria sentido y se propaga el error.
+     */
+    @Override
+    public List<RecommendationResponse> recommendStreaming(
+        PantrySnapshot pantry,
+        Consumer<RecommendationResponse> onRecommendation
+    ) {
+        if (!enabled) {
+            return delegate.recommendStreaming(pantry, onRecommendation);
+        }
+        AtomicBoolean delivered = new AtomicBoolean();
+        try {
+            return delegate.recommendStreaming(pantry, recommendation -> {
+                delivered.set(true);
+                onRecommendation.accept(recommendation);
+            });
+        } catch (AiServiceException ex) {
+            if (delivered.get()) {
+                throw ex;
+            }
+            LOGGER.warn("El motor de IA fallo ({}); se usa el recomendador local", ex.getMessage());
+            List<RecommendationResponse> local = fallbackOrThrow(pantry, ex);
+            local.forEach(onRecommendation);
+            return local;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<RecommendationResponse> fallbackOrThrow(PantrySnapshot pantry, AiServiceException failure) {
+        List<RecommendationResponse> local = localFallback(pantry);
+        if (local.isEmpty()) {
+            throw failure;
+        }
+        return local;
+    }
+
+    /**
+     * Coincidencias del catalogo ordenadas por cobertura, sin umbral minimo y marcadas como fallback;
+     * si el calculo excede el presupuesto se abandona y se devuelve una lista vacia.
+     */
+    private List<RecommendationResponse> localFallback(PantrySnapshot pantry) {
+        if (!enabled || pantry.isEmpty()) {
+            return List.of();
+        }
+        Future<List<RecommendationResponse>> local = executor.submit(() ->
+            localRecipeMatcher.findMatches(pantry, 0.0, maxResults).stream()
+                .map(RecommendationResponse::asFallback)
+                .toList()
+        );
+        try {
+            return local.get(localBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            local.cancel(true);
+            LOGGER.warn("El recomendador local excedio su presupuesto de {} ms", localBudgetMillis);
+            return List.of();
+        } catch (ExecutionException ex) {
+            LOGGER.warn("Fallo el recomendador local", ex.getCause());
+            return List.of();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide incrementalmente un arreglo JSON que llega por fragmentos en sus objetos de primer nivel.
+ * Ignora cualquier texto previo al primer '[' (p. ej. una cerca Markdown ```json) y todo lo que
+ * sigue al ']' de cierre. No es thread-safe: se usa una instancia por respuesta.
+ */
+public class JsonArrayStreamSplitter {
+
+    private final StringBuilder current = new StringBuilder();
+    private boolean inArray;
+    private boolean finished;
+    private boolean inString;
+    private boolean escaped;
+    private int depth;
+
+    /**
+     * Consume un fragmento y devuelve los objetos que quedaron completos con el.
+     */
+    public List<String> feed(CharSequence chunk) {
+        List<String> completed = new ArrayList<>(1);
+        for (int i = 0; i < chunk.length() && !finished; i++) {
+            char c = chunk.charAt(i);
+            if (!inArray) {
+                inArray = c == '[';
+                continue;
+            }
+            if (depth == 0) {
+                if (c == '{') {
+                    depth = 1;
+                    current.setLength(0);
+                    current.append(c);
+                } else if (c == ']') {
+                    finished = true;
+                }
+                continue;
+            }
+
+            current.append(c);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    completed.add(current.toString());
+                    current.setLength(0);
+                }
+            }
+        }
+        return completed;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.model.Recipe;
+import com.example.recipesapp.model.RecipeIngredient;
+import com.example.recipesapp.repository.RecipeIngredientRepository;
+import com.example.recipesapp.repository.RecipeIngredientRepository.RecipeIngredientLink;
+import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
+import com.example.recipesapp.service.recommendation.RecipeMatchIndex.RecipeMatch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Busca recetas del catalogo propio que ya cubren la despensa del usuario,
+ * para evitar la llamada remota a la IA cuando el catalogo es suficiente.
+ */
+@Service
+public class LocalRecipeMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalRecipeMatcher.class);
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeRepository recipeRepository;
+    private final RecipeMatchIndex index = new RecipeMatchIndex();
+    private final boolean enabled;
+    private final double minScore;
+    private final int minResults;
+    private final int maxResults;
+
+    public LocalRecipeMatcher(
+        RecipeIngredientRepository recipeIngredientRepository,
+        RecipeRepository recipeRepository,
+        @Value("${app.recommendations.local-match.enabled:true}") boolean enabled,
+        @Value("${app.recommendations.local-match.min-score:0.75}") double minScore,
+        @Value("${app.recommendations.local-match.min-results:1}") int minResults,
+        @Value("${app.recommendations.local-match.max-results:3}") int maxResults
+    ) {
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.recipeRepository = recipeRepository;
+        this.enabled = enabled;
+        this.minScore = minScore;
+        this.minResults = Math.max(1, minResults);
+        this.maxResults = Math.max(this.minResults, maxResults);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        Map<Long, Set<Long>> ingredientsPerRecipe = new HashMap<>();
+        for (RecipeIngredientLink link : recipeIngredientRepository.findAllLinks()) {
+            ingredientsPerRecipe.computeIfAbsent(link.getRecipeId(), id -> new HashSet<>())
+                .add(link.getIngredientId());
+        }
+        index.replaceAll(ingredientsPerRecipe);
+        LOGGER.info("Indice local de recetas construido con {} recetas", index.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.recipeId());
+        } else {
+            index.put(event.recipeId(), event.ingredientIds());
+        }
+    }
+
+    /**
+     * Devuelve las mejores coincidencias del catalogo si alcanzan el umbral configurado;
+     * una lista vacia indica que la cobertura local no basta y hay que consultar a la IA.
+     */
+    public List<RecommendationResponse> findConfidentMatches(PantrySnapshot pantry) {
+        if (!enabled || pantry.isEmpty()) {
+            return List.of();
+        }
+        List<RecommendationResponse> matches = findMatches(pantry, minScore, maxResults);
+        return matches.size() >= minResults ? matches : List.of();
+    }
+
+    public List<RecommendationResponse> findMatches(PantrySnapshot pantry, double minScore, int limit) {
+        Set<Long> pantryIngredientIds = pantry.items().stream()
+            .map(PantryEntry::ingredientId)
+            .collect(Collectors.toSet());
+
+        List<RecipeMatch> ranked = index.match(pantryIngredientIds, minScore, limit);
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> recipeIds = ranked.stream().map(RecipeMatch::recipeId).toList();
+        Map<Long, Recipe> recipes = recipeRepository.findWithIngredientsByIdIn(recipeIds).stream()
+            .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+
+        List<RecommendationResponse> recommendations = new ArrayList<>(ranked.size());
+        for (RecipeMatch match : ranked) {
+            Recipe recipe = recipes.get(match.recipeId());
+            if (recipe != null) {
+                recommendations.add(toRecommendation(recipe, match, pantryIngredientIds));
+            }
+        }
+        return recommendations;
+    }
+
+    private RecommendationResponse toRecommendation(Recipe recipe, RecipeMatch match, Set<Long> pantryIngredientIds) {
+        List<String> missing = new ArrayList<>();
+        List<RecommendationIngredientDto> ingredients = new ArrayList<>(recipe.getIngredients().size());
+        for (RecipeIngredient recipeIngredient : recipe.getIngredients()) {
+            String name = recipeIngredient.getIngredient().getIngredientName();
+            ingredients.add(new RecommendationIngredientDto(name, recipeIngredient.getQuantity(), recipeIngredient.getUnit()));
+            if (!pantryIngredientIds.contains(recipeIngredient.getIngredient().getId())) {
+                missing.add(name);
+            }
+        }
+
+        return new RecommendationResponse(
+            recipe.getId(),
+            recipe.getName(),
+            recipe.getDescription(),
+            recipe.getInstructions(),
+            recipe.getPrepTimeMinutes(),
+            recipe.getDifficulty() != null ? recipe.getDifficulty().name() : null,
+            recipe.getImageUrl(),
+            match.score(),
+            missing,
+            ingredients
+        );
+    }
+}
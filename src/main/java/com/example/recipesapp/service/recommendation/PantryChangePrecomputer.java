@@ -0,0 +1,109 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.exception.TooManyRequestsException;
+import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.event.PantryChangedEvent;
+import com.example.recipesapp.service.job.RecommendationJobExecutor;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Precalcula recomendaciones cuando cambia la despensa, para que el siguiente
+ * GET /api/recommendations salga de la cache. Los cambios se agrupan por usuario: la regeneracion
+ * corre debounce despues de la ultima edicion, y una rafaga de cambios produce una sola llamada.
+ * Pasa por RecommendationService, asi que el resultado queda en la cache del motor, y por
+ * RecommendationJobExecutor. Consume del presupuesto de sistema del rate limiter, no del usuario
+ * (si no, unas pocas ediciones lo dejarian sin cuota para el GET que el precalculo quiere servir),
+ * y si ese presupuesto se agoto o el sistema esta saturado simplemente se omite.
+ */
+@Component
+public class PantryChangePrecomputer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PantryChangePrecomputer.class);
+
+    private final RecommendationService recommendationService;
+    private final RecommendationJobExecutor executor;
+    private final RecommendationRateLimiter rateLimiter;
+    private final boolean enabled;
+    private final long debounceMillis;
+    // Ultima edicion por usuario: solo la tarea programada con el token vigente regenera.
+    private final ConcurrentMap<Long, Object> latestEdit = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().daemon().name("recommendation-precompute").factory()
+    );
+
+    public PantryChangePrecomputer(
+        RecommendationService recommendationService,
+        RecommendationJobExecutor executor,
+        RecommendationRateLimiter rateLimiter,
+        @Value("${app.recommendations.precompute.enabled:true}") boolean enabled,
+        @Value("${app.recommendations.precompute.debounce:2s}") Duration debounce
+    ) {
+        this.recommendationService = recommendationService;
+        this.executor = executor;
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.debounceMillis = Math.max(0, debounce.toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPantryChanged(PantryChangedEvent event) {
+        if (!enabled || event.userId() == null) {
+            return;
+        }
+        Long userId = event.userId();
+        Object token = new Object();
+        latestEdit.put(userId, token);
+        scheduler.schedule(() -> {
+            if (latestEdit.remove(userId, token)) {
+                precompute(userId);
+            }
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int pendingCount() {
+        return latestEdit.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void precompute(Long userId) {
+        if (!rateLimiter.tryAcquireBackground()) {
+            LOGGER.debug("Precalculo omitido para el usuario {}: presupuesto de precalculo agotado", userId);
+            return;
+        }
+        try {
+            executor.submitAsync(() -> {
+                PantrySnapshot pantry = recommendationService.loadPantrySnapshot(userId);
+                if (pantry.isEmpty()) {
+                    return CompletableFuture.completedFuture(List.of());
+                }
+                return recommendationService.generateRecommendationsAsync(pantry);
+            }).whenComplete((recommendations, error) -> {
+                if (error != null) {
+                    LOGGER.debug("No se pudieron precalcular recomendaciones del usuario {}: {}", userId, error.getMessage());
+                } else {
+                    LOGGER.debug("Recomendaciones precalculadas para el usuario {}", userId);
+                }
+            });
+        } catch (TooManyRequestsException ex) {
+            LOGGER.debug("Precalculo omitido para el usuario {}: sistema saturado", userId);
+        }
+    }
+}
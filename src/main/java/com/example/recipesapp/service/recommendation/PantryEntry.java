@@ -0,0 +1,13 @@
+package com.example.recipesapp.service.recommendation;
+
+/**
+ * Copia inmutable de un elemento de la despensa, segura para usarse fuera de la sesion JPA.
+ */
+public record PantryEntry(
+    Long ingredientId,
+    String ingredientName,
+    Double quantity,
+    String unit,
+    String categoryName
+) {
+}
@@ -0,0 +1,114 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Huella normalizada de una despensa: ids ordenados, unidades canonicas y cantidades
+ * agrupadas en potencias de dos. Dos despensas "equivalentes" producen la misma huella.
+ */
+public final class PantryFingerprint {
+
+    private static final Map<String, String> UNIT_ALIASES = Map.ofEntries(
+        Map.entry("g", "g"),
+        Map.entry("gr", "g"),
+        Map.entry("grs", "g"),
+        Map.entry("gramo", "g"),
+        Map.entry("gramos", "g"),
+        Map.entry("kg", "kg"),
+        Map.entry("kgs", "kg"),
+        Map.entry("kilo", "kg"),
+        Map.entry("kilos", "kg"),
+        Map.entry("kilogramo", "kg"),
+        Map.entry("kilogramos", "kg"),
+        Map.entry("ml", "ml"),
+        Map.entry("mililitro", "ml"),
+        Map.entry("mililitros", "ml"),
+        Map.entry("l", "l"),
+        Map.entry("lt", "l"),
+        Map.entry("lts", "l"),
+        Map.entry("litro", "l"),
+        Map.entry("litros", "l"),
+        Map.entry("u", "unidad"),
+        Map.entry("ud", "unidad"),
+        Map.entry("uds", "unidad"),
+        Map.entry("unidad", "unidad"),
+        Map.entry("unidades", "unidad")
+    );
+
+    private PantryFingerprint() {
+    }
+
+    public static String of(List<PantryEntry> entries) {
+        List<PantryEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(PantryEntry::ingredientId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        StringBuilder canonical = new StringBuilder(sorted.size() * 16);
+        for (PantryEntry entry : sorted) {
+            String unit = normalizeUnit(entry.unit());
+            canonical.append(entry.ingredientId())
+                .append(':')
+                .append(quantityBucket(toBaseQuantity(entry.quantity(), unit)))
+                .append(':')
+                .append(baseUnit(unit))
+                .append(';');
+        }
+        return sha256(canonical.toString());
+    }
+
+    /**
+     * Lleva la unidad a su forma canonica (minusculas, sin punto final, alias comunes unificados).
+     */
+    public static String normalizeUnit(String unit) {
+        if (unit == null) {
+            return "";
+        }
+        String normalized = unit.trim().toLowerCase(Locale.ROOT);
+        if (normalized.endsWith(".")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return UNIT_ALIASES.getOrDefault(normalized, normalized);
+    }
+
+    /**
+     * Convierte kg a g y l a ml para que 1 kg y 1000 g caigan en el mismo grupo.
+     */
+    public static double toBaseQuantity(Double quantity, String normalizedUnit) {
+        double value = quantity != null ? quantity : 0.0;
+        return switch (normalizedUnit) {
+            case "kg", "l" -> value * 1000.0;
+            default -> value;
+        };
+    }
+
+    public static String baseUnit(String normalizedUnit) {
+        return switch (normalizedUnit) {
+            case "kg" -> "g";
+            case "l" -> "ml";
+            default -> normalizedUnit;
+        };
+    }
+
+    private static int quantityBucket(double quantity) {
+        if (!(quantity > 0)) {
+            return 0;
+        }
+        return 64 - Long.numberOfLeadingZeros((long) Math.ceil(quantity));
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no esta disponible en la JVM", ex);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.model.PantryItem;
+import com.example.recipesapp.model.User;
+import java.util.List;
+
+/**
+ * Value Object con la despensa de un usuario en un instante dado y su huella normalizada.
+ * Se construye dentro de la transaccion para que el resto del pipeline no dependa de entidades JPA.
+ */
+public record PantrySnapshot(
+    Long userId,
+    List<PantryEntry> items,
+    String fingerprint
+) {
+
+    public static PantrySnapshot of(User user, List<PantryItem> pantryItems) {
+        return of(user.getId(), pantryItems);
+    }
+
+    public static PantrySnapshot of(Long userId, List<PantryItem> pantryItems) {
+        List<PantryEntry> entries = pantryItems.stream()
+            .map(item -> new PantryEntry(
+                item.getId().getIngredientId(),
+                item.getIngredient().getIngredientName(),
+                item.getQuantity(),
+                item.getUnit(),
+                item.getIngredient().getCategory() != null ? item.getIngredient().getCategory().getCategoryName() : null
+            ))
+            .toList();
+        return new PantrySnapshot(userId, entries, PantryFingerprint.of(entries));
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SHA-256 del contenido normalizado de una receta recomendada: titulo, instrucciones e
+ * ingredientes (nombre, cantidad y unidad, sin importar el orden). Mayusculas, acentos y
+ * espacios repetidos no cambian la huella, asi el mismo guardado repetido se reconoce.
+ */
+public final class RecipeContentHash {
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char RECORD_SEPARATOR = '\u001E';
+
+    private RecipeContentHash() {
+    }
+
+    public static String of(String title, String instructions, List<RecommendationIngredientDto> ingredients) {
+        List<String> normalizedIngredients = new ArrayList<>();
+        if (ingredients != null) {
+            for (RecommendationIngredientDto ingredient : ingredients) {
+                normalizedIngredients.add(normalize(ingredient.name()) + FIELD_SEPARATOR
+                    + (ingredient.quantity() != null ? ingredient.quantity().toString() : "") + FIELD_SEPARATOR
+                    + normalize(ingredient.unit()));
+            }
+        }
+        normalizedIngredients.sort(null);
+
+        StringBuilder content = new StringBuilder()
+            .append(normalize(title)).append(RECORD_SEPARATOR)
+            .append(normalize(instructions)).append(RECORD_SEPARATOR);
+        normalizedIngredients.forEach(ingredient -> content.append(ingredient).append(RECORD_SEPARATOR));
+        return HexFormat.of().formatHex(sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+            .replaceAll("\\p{M}+", "")
+            .replaceAll("\\s+", " ")
+            .trim();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Toda JVM esta obligada a soportar SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Valida en lote los recipeId propuestos por la IA: los ids ya conocidos salen de una cache corta
+ * y el resto se resuelve con una unica consulta IN. Solo se recuerdan ids existentes, para que una
+ * receta recien creada no quede marcada como invalida; los borrados se invalidan por evento.
+ */
+@Component
+public class RecipeIdValidator {
+
+    private final RecipeRepository recipeRepository;
+    private final Cache<Long, Boolean> knownIds;
+
+    public RecipeIdValidator(
+        RecipeRepository recipeRepository,
+        @Value("${app.recommendations.known-recipe-ids.ttl:5m}") Duration ttl,
+        @Value("${app.recommendations.known-recipe-ids.max-entries:10000}") long maxEntries
+    ) {
+        this.recipeRepository = recipeRepository;
+        this.knownIds = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxEntries)
+            .build();
+    }
+
+    /**
+     * Devuelve el subconjunto de ids que existen en el catalogo.
+     */
+    public Set<Long> findExisting(Collection<Long> candidateIds) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long id : candidateIds) {
+            if (id == null || id <= 0) {
+                continue;
+            }
+            if (knownIds.getIfPresent(id) != null) {
+                existing.add(id);
+            } else if (!unknown.contains(id)) {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            for (Long id : recipeRepository.findExistingIds(unknown)) {
+                knownIds.put(id, Boolean.TRUE);
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (event.deleted()) {
+            knownIds.invalidate(event.recipeId());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice invertido en memoria: ingrediente -> recetas que lo usan.
+ * Las escrituras se serializan y las lecturas no bloquean. replaceAll construye mapas nuevos y los
+ * publica con una sola escritura volatil, asi un lector nunca ve el indice vacio ni a medio cargar;
+ * put y remove solo tocan una receta sobre los mapas concurrentes del indice vigente.
+ */
+public class RecipeMatchIndex {
+
+    private static final Comparator<RecipeMatch> BEST_FIRST = Comparator
+        .comparingDouble(RecipeMatch::score).reversed()
+        .thenComparing(Comparator.comparingInt(RecipeMatch::matchedIngredients).reversed())
+        .thenComparing(RecipeMatch::recipeId);
+
+    private volatile Maps maps = new Maps();
+
+    public synchronized void replaceAll(Map<Long, Set<Long>> ingredientsPerRecipe) {
+        Maps rebuilt = new Maps();
+        ingredientsPerRecipe.forEach(rebuilt::add);
+        maps = rebuilt;
+    }
+
+    public synchronized void put(Long recipeId, Set<Long> ingredientIds) {
+        Maps current = maps;
+        current.delete(recipeId);
+        current.add(recipeId, ingredientIds);
+    }
+
+    public synchronized void remove(Long recipeId) {
+        maps.delete(recipeId);
+    }
+
+    public int size() {
+        return maps.ingredientsByRecipe.size();
+    }
+
+    /**
+     * Puntua cada receta que comparte al menos un ingrediente con la despensa.
+     * El puntaje es la fraccion de ingredientes de la receta que ya estan disponibles.
+     */
+    public List<RecipeMatch> match(Set<Long> pantryIngredientIds, double minScore, int limit) {
+        // Una sola lectura del volatil: ambos mapas salen de la misma generacion del indice.
+        Maps current = maps;
+        Map<Long, Integer> hits = new HashMap<>();
+        for (Long ingredientId : pantryIngredientIds) {
+            Set<Long> recipeIds = current.recipesByIngredient.get(ingredientId);
+            if (recipeIds == null) {
+                continue;
+            }
+            for (Long recipeId : recipeIds) {
+                hits.merge(recipeId, 1, Integer::sum);
+            }
+        }
+
+        List<RecipeMatch> matches = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : hits.entrySet()) {
+            Set<Long> recipeIngredients = current.ingredientsByRecipe.get(entry.getKey());
+            if (recipeIngredients == null || recipeIngredients.isEmpty()) {
+                continue;
+            }
+            int total = recipeIngredients.size();
+            RecipeMatch match = new RecipeMatch(entry.getKey(), Math.min(entry.getValue(), total), total);
+            if (match.score() >= minScore) {
+                matches.add(match);
+            }
+        }
+
+        matches.sort(BEST_FIRST);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public record RecipeMatch(Long recipeId, int matchedIngredients, int totalIngredients) {
+
+        public double score() {
+            return (double) matchedIngredients / totalIngredients;
+        }
+    }
+
+    private static final class Maps {
+
+        private final Map<Long, Set<Long>> recipesByIngredient = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> ingredientsByRecipe = new ConcurrentHashMap<>();
+
+        private void add(Long recipeId, Set<Long> ingredientIds) {
+            if (recipeId == null || ingredientIds == null || ingredientIds.isEmpty()) {
+                return;
+            }
+            ingredientsByRecipe.put(recipeId, Set.copyOf(ingredientIds));
+            for (Long ingredientId : ingredientIds) {
+                recipesByIngredient.computeIfAbsent(ingredientId, id -> ConcurrentHashMap.newKeySet()).add(recipeId);
+            }
+        }
+
+        private void delete(Long recipeId) {
+            Set<Long> previous = ingredientsByRecipe.remove(recipeId);
+            if (previous == null) {
+                return;
+            }
+            for (Long ingredientId : previous) {
+                Set<Long> recipeIds = recipesByIngredient.get(ingredientId);
+                if (recipeIds != null) {
+                    recipeIds.remove(recipeId);
+                    if (recipeIds.isEmpty()) {
+                        recipesByIngredient.remove(ingredientId);
+                    }
+                }
+            }
+        }
+    }
+}
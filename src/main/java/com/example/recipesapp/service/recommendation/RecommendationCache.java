@@ -0,0 +1,75 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Cache de recomendaciones ya interpretadas, indexada por la huella normalizada de la despensa.
+ * Caffeine aplica expiracion por TTL y desalojo W-TinyLFU; las metricas se publican como
+ * cache.gets{result=hit|miss}, cache.evictions y cache.size con la etiqueta cache=recommendations.
+ */
+@Component
+public class RecommendationCache {
+
+    private final Cache<String, List<RecommendationResponse>> cache;
+
+    public RecommendationCache(
+        MeterRegistry meterRegistry,
+        @Value("${app.recommendations.cache.ttl:10m}") Duration ttl,
+        @Value("${app.recommendations.cache.max-entries:1000}") long maxEntries,
+        @Value("${app.recommendations.cache.max-bytes:33554432}") long maxBytes
+    ) {
+        // Caffeine no combina maximumSize y maximumWeight: cada entrada pesa al menos
+        // maxBytes / maxEntries, asi el limite de peso acota tambien el numero de entradas.
+        long minWeight = Math.max(1, maxBytes / Math.max(1, maxEntries));
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumWeight(maxBytes)
+            .<String, List<RecommendationResponse>>weigher((key, value) -> (int) Math.min(
+                Integer.MAX_VALUE,
+                Math.max(minWeight, RecommendationSizeEstimator.estimateBytes(value))
+            ))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recommendations");
+    }
+
+    public Optional<List<RecommendationResponse>> get(String fingerprint) {
+        return Optional.ofNullable(cache.getIfPresent(fingerprint));
+    }
+
+    /**
+     * Las respuestas del recomendador de respaldo no se guardan: la siguiente peticion debe
+     * volver a intentar con la IA.
+     */
+    public void put(String fingerprint, List<RecommendationResponse> recommendations) {
+        if (recommendations != null && !recommendations.isEmpty()
+            && recommendations.stream().noneMatch(RecommendationResponse::fallback)) {
+            cache.put(fingerprint, List.copyOf(recommendations));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Una receta eliminada podria seguir apareciendo con su recipeId en entradas cacheadas.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (event.deleted()) {
+            invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Strategy pattern: produce recomendaciones para una despensa. Las implementaciones
+ * se encadenan como decoradores (cache, etc.) alrededor del motor basado en IA.
+ */
+public interface RecommendationEngine {
+
+    List<RecommendationResponse> recommend(PantrySnapshot pantry);
+
+    /**
+     * Variante asincrona. Por defecto ejecuta recommend en un hilo virtual; los motores que
+     * esperan a la IA la sobrescriben para encadenar el future del cliente HTTP.
+     */
+    default CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+        return CompletableFuture.supplyAsync(() -> recommend(pantry), task -> Thread.ofVirtual().start(task));
+    }
+
+    /**
+     * Como recommend, pero entrega cada recomendacion a onRecommendation en cuanto esta lista (SSE).
+     * Por defecto espera la lista completa y la entrega de una vez; el motor de IA la sobrescribe
+     * para leer la respuesta por fragmentos y los decoradores para aplicar cache, agrupacion y respaldo.
+     */
+    default List<RecommendationResponse> recommendStreaming(
+        PantrySnapshot pantry,
+        Consumer<RecommendationResponse> onRecommendation
+    ) {
+        List<RecommendationResponse> recommendations = recommend(pantry);
+        recommendations.forEach(onRecommendation);
+        return recommendations;
+    }
+
+    /**
+     * Recomendaciones que se pueden responder sin generar nada (p. ej. desde la cache). Permite
+     * cobrar el rate limit solo cuando de verdad se va a llamar a la IA; por defecto, ninguna.
+     */
+    default Optional<List<RecommendationResponse>> cached(PantrySnapshot pantry) {
+        return Optional.empty();
+    }
+}
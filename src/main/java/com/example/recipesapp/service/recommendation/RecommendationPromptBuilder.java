@@ -0,0 +1,246 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Construye el prompt enviado al proveedor de IA a partir de la despensa.
+ * El prompt se escribe en un unico StringBuilder dimensionado al presupuesto de max-tokens.
+ * Las entradas casi identicas (mismo nombre sin acentos ni plural y misma unidad base) se
+ * agrupan sumando cantidades. Si la despensa no cabe, entran primero los perecederos (segun su
+ * categoria) y las cantidades mayores de cada unidad; el resto se omite.
+ * buildSingle pide una unica receta con un enfoque distinto por indice, para el modo fan-out.
+ */
+@Component
+public class RecommendationPromptBuilder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationPromptBuilder.class);
+
+    /**
+     * Aproximacion habitual para texto en espanol con tokenizadores BPE.
+     */
+    static final int CHARS_PER_TOKEN = 4;
+
+    private static final String PREFIX =
+        "Actua como un chef asistido por IA. Dispones de estos ingredientes en la despensa: ";
+    private static final String THREE_RECIPES = ". Debes devolver exactamente 3 recetas distintas en formato JSON (arreglo). ";
+    private static final String ONE_RECIPE = ". Debes devolver exactamente 1 receta en formato JSON (arreglo con un unico objeto). ";
+    private static final String SUFFIX =
+        "Cada receta debe usar la mayor cantidad posible de los ingredientes disponibles y puede incluir como maximo tres ingredientes adicionales si son indispensables. "
+            + "El JSON debe contener objetos con la forma {\"recipeId\": number o null, "
+            + "\"title\": string, \"description\": string, \"instructions\": string, \"prepTimeMinutes\": number o null, "
+            + "\"difficulty\": string, \"imageUrl\": string o null, \"matchScore\": number entre 0 y 1, "
+            + "\"missingIngredients\": array de strings, \"ingredients\": array de objetos {\"name\": string, \"quantity\": number o null, \"unit\": string}}. "
+            + "Si no conoces un identificador real para la receta, usa null en \"recipeId\" y nunca inventes valores. "
+            + "No incluyas texto adicional fuera del JSON.";
+    private static final String DISTINCT_RECIPES =
+        " Asegurate de que las tres recetas sean diferentes en titulo e instrucciones.";
+    private static final List<String> FOCUS_HINTS = List.of(
+        "un plato principal sencillo y rapido",
+        "una preparacion al horno, guiso o salteado",
+        "una opcion ligera como ensalada, sopa o crema",
+        "un plato de inspiracion internacional",
+        "un desayuno, merienda o postre"
+    );
+    private static final String EMPTY_PANTRY = "ningun ingrediente";
+    private static final String SEPARATOR = ", ";
+
+    private static final Comparator<PromptItem> LARGEST_FIRST = Comparator
+        .comparingDouble(PromptItem::quantity).reversed()
+        .thenComparing(PromptItem::name);
+    private static final Comparator<RankedItem> PRIORITY = Comparator
+        .comparing((RankedItem ranked) -> ranked.item().perishable()).reversed()
+        .thenComparingInt(RankedItem::rank)
+        .thenComparing(ranked -> ranked.item().name())
+        .thenComparing(ranked -> ranked.item().unit());
+
+    private final RecommendationMetrics metrics;
+    private final int maxChars;
+    private final List<String> perishableCategories;
+
+    public RecommendationPromptBuilder(
+        RecommendationMetrics metrics,
+        @Value("${app.recommendations.prompt.max-tokens:1000}") int maxTokens,
+        @Value("${app.recommendations.prompt.perishable-categories:verdura,fruta,hortaliza,vegetal,carne,pescado,marisco,lacteo,huevo,fiambre}")
+        String perishableCategories
+    ) {
+        this.metrics = metrics;
+        this.maxChars = maxTokens * CHARS_PER_TOKEN;
+        this.perishableCategories = Arrays.stream(perishableCategories.split(","))
+            .map(RecommendationPromptBuilder::normalizeName)
+            .filter(StringUtils::hasText)
+            .toList();
+    }
+
+    public String build(List<PantryEntry> pantryItems) {
+        return record(() -> render(pantryItems, THREE_RECIPES, DISTINCT_RECIPES));
+    }
+
+    /**
+     * Prompt de una sola receta para la llamada index de total; cada indice recibe un enfoque
+     * distinto para que las respuestas concurrentes no se repitan.
+     */
+    public String buildSingle(List<PantryEntry> pantryItems, int index, int total) {
+        String focus = FOCUS_HINTS.get(index % FOCUS_HINTS.size());
+        String hint = " Es la propuesta " + (index + 1) + " de " + total + ": sugiere " + focus
+            + ", distinta de las otras propuestas.";
+        return record(() -> render(pantryItems, ONE_RECIPE, hint));
+    }
+
+    private String record(Supplier<String> renderer) {
+        String prompt = metrics.recordPromptBuild(renderer);
+        metrics.recordPromptSize(prompt.length());
+        metrics.recordPromptTokens(estimateTokens(prompt));
+        return prompt;
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private String render(List<PantryEntry> pantryItems, String countInstruction, String closing) {
+        List<PromptItem> items = prioritized(pantryItems);
+        int fixedLength = PREFIX.length() + countInstruction.length() + SUFFIX.length() + closing.length();
+        int listBudget = maxChars - fixedLength;
+
+        StringBuilder prompt = new StringBuilder(Math.max(maxChars, fixedLength + EMPTY_PANTRY.length()));
+        prompt.append(PREFIX);
+        int listStart = prompt.length();
+        int included = 0;
+        for (PromptItem item : items) {
+            int mark = prompt.length();
+            if (included > 0) {
+                prompt.append(SEPARATOR);
+            }
+            appendItem(prompt, item);
+            // Siempre entra al menos un ingrediente, aunque por si solo exceda el presupuesto.
+            if (included > 0 && prompt.length() - listStart > listBudget) {
+                prompt.setLength(mark);
+                break;
+            }
+            included++;
+        }
+        if (included == 0) {
+            prompt.append(EMPTY_PANTRY);
+        } else if (included < items.size()) {
+            LOGGER.debug("Prompt acotado a {} de {} ingredientes por el presupuesto de tokens", included, items.size());
+        }
+        return prompt.append(countInstruction).append(SUFFIX).append(closing).toString();
+    }
+
+    /**
+     * Agrupa entradas casi identicas y las ordena por prioridad: perecederos primero y luego por
+     * puesto de cantidad dentro de su unidad base. Las cantidades solo se comparan con la misma
+     * unidad (500 g frente a 2 unidades no dice nada), asi que las unidades se intercalan.
+     */
+    private List<PromptItem> prioritized(List<PantryEntry> pantryItems) {
+        Map<String, PromptItem> merged = new LinkedHashMap<>();
+        for (PantryEntry entry : pantryItems) {
+            if (!StringUtils.hasText(entry.ingredientName())) {
+                continue;
+            }
+            String unit = PantryFingerprint.normalizeUnit(entry.unit());
+            String baseUnit = PantryFingerprint.baseUnit(unit);
+            PromptItem item = new PromptItem(
+                entry.ingredientName().trim(),
+                entry.quantity() != null ? PantryFingerprint.toBaseQuantity(entry.quantity(), unit) : 0.0,
+                entry.quantity() != null,
+                baseUnit,
+                isPerishable(entry.categoryName())
+            );
+            merged.merge(normalizeName(item.name()) + '|' + baseUnit, item, PromptItem::plus);
+        }
+        Map<String, List<PromptItem>> byUnit = new HashMap<>();
+        for (PromptItem item : merged.values()) {
+            byUnit.computeIfAbsent(item.perishable() + "|" + item.unit(), key -> new ArrayList<>()).add(item);
+        }
+        List<RankedItem> ranked = new ArrayList<>(merged.size());
+        for (List<PromptItem> sameUnit : byUnit.values()) {
+            sameUnit.sort(LARGEST_FIRST);
+            for (int rank = 0; rank < sameUnit.size(); rank++) {
+                ranked.add(new RankedItem(sameUnit.get(rank), rank));
+            }
+        }
+        ranked.sort(PRIORITY);
+        return ranked.stream().map(RankedItem::item).toList();
+    }
+
+    private boolean isPerishable(String categoryName) {
+        if (!StringUtils.hasText(categoryName)) {
+            return false;
+        }
+        String normalized = normalizeName(categoryName);
+        for (String perishable : perishableCategories) {
+            if (normalized.contains(perishable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendItem(StringBuilder prompt, PromptItem item) {
+        prompt.append(item.name());
+        if (!item.hasQuantity() && item.unit().isEmpty()) {
+            return;
+        }
+        prompt.append(" (");
+        if (item.hasQuantity()) {
+            appendQuantity(prompt, item.quantity());
+            if (!item.unit().isEmpty()) {
+                prompt.append(' ');
+            }
+        }
+        prompt.append(item.unit()).append(')');
+    }
+
+    private void appendQuantity(StringBuilder prompt, double quantity) {
+        if (quantity == Math.rint(quantity) && Math.abs(quantity) < 1e15) {
+            prompt.append((long) quantity);
+        } else {
+            prompt.append(Math.round(quantity * 100) / 100.0);
+        }
+    }
+
+    /**
+     * Minusculas, sin acentos, espacios colapsados y sin la "s" final del plural.
+     */
+    static String normalizeName(String name) {
+        String normalized = Normalizer.normalize(name.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+            .replaceAll("\\p{M}+", "")
+            .replaceAll("\\s+", " ");
+        if (normalized.length() > 3 && normalized.endsWith("s")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private record PromptItem(String name, double quantity, boolean hasQuantity, String unit, boolean perishable) {
+
+        PromptItem plus(PromptItem other) {
+            return new PromptItem(
+                name,
+                quantity + other.quantity,
+                hasQuantity || other.hasQuantity,
+                unit,
+                perishable || other.perishable
+            );
+        }
+    }
+
+    private record RankedItem(PromptItem item, int rank) {
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Convierte el texto JSON devuelto por la IA en recomendaciones saneadas leyendo los tokens
+ * de Jackson directamente, sin construir un arbol JsonNode ni copiar el texto para quitar
+ * las cercas Markdown. Acepta la respuesta completa (arreglo) o un objeto suelto, como los
+ * que emite el modo streaming. Si la respuesta llega truncada se conservan las recetas completas.
+ * Los recipeId propuestos se validan todos juntos al final, no uno por uno durante la lectura.
+ */
+@Component
+public class RecommendationResponseParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationResponseParser.class);
+    private static final String DEFAULT_TITLE = "Receta sugerida";
+    private static final double DEFAULT_MATCH_SCORE = 0.5;
+
+    private final RecipeIdValidator recipeIdValidator;
+    private final RecommendationMetrics metrics;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public RecommendationResponseParser(RecipeIdValidator recipeIdValidator, RecommendationMetrics metrics) {
+        this.recipeIdValidator = recipeIdValidator;
+        this.metrics = metrics;
+    }
+
+    public List<RecommendationResponse> parse(String rawText) {
+        metrics.parseAttempt();
+        List<RecommendationResponse> recommendations;
+        try {
+            recommendations = metrics.recordParse(() -> readRecommendations(rawText));
+        } catch (AiServiceException ex) {
+            metrics.parseFailure();
+            throw ex;
+        }
+        return validateRecipeIds(recommendations);
+    }
+
+    private List<RecommendationResponse> readRecommendations(String rawText) {
+        if (!StringUtils.hasText(rawText)) {
+            throw new AiServiceException("La respuesta de la API de Gemini esta vacia.");
+        }
+        // El arreglo empieza en el primer '[': asi se salta una cerca ```json sin crear substrings;
+        // lo que venga despues del ']' de cierre (la cerca final) nunca se lee. Con salida estructurada
+        // el texto ya es el arreglo puro y el '[' es el primer caracter.
+        int arrayStart = rawText.indexOf('[');
+        if (arrayStart < 0) {
+            throw new AiServiceException("La respuesta de Gemini no tiene el formato JSON esperado.");
+        }
+
+        List<RecommendationResponse> recommendations = new ArrayList<>();
+        try (StringReader reader = new StringReader(rawText);
+             JsonParser parser = jsonFactory.createParser(skip(reader, arrayStart))) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new AiServiceException("La respuesta de Gemini termino antes de cerrar el arreglo JSON.");
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    recommendations.add(readRecommendation(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return recommendations;
+        } catch (JsonProcessingException | AiServiceException ex) {
+            if (!recommendations.isEmpty()) {
+                LOGGER.warn("Respuesta de Gemini incompleta; se conservan {} recetas completas", recommendations.size());
+                return recommendations;
+            }
+            LOGGER.error("No fue posible interpretar la respuesta de la API de Gemini", ex);
+            if (ex instanceof AiServiceException aiServiceException) {
+                throw aiServiceException;
+            }
+            throw new AiServiceException("No fue posible interpretar la respuesta de la API de Gemini.", ex);
+        } catch (IOException ex) {
+            throw new AiServiceException("No fue posible interpretar la respuesta de la API de Gemini.", ex);
+        }
+    }
+
+    /**
+     * Interpreta un unico objeto receta; devuelve null si el fragmento no es un objeto JSON valido.
+     */
+    public RecommendationResponse parseObject(String objectJson) {
+        metrics.parseAttempt();
+        try (JsonParser parser = jsonFactory.createParser(objectJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                metrics.parseFailure();
+                return null;
+            }
+            return validateRecipeIds(List.of(readRecommendation(parser))).get(0);
+        } catch (IOException ex) {
+            metrics.parseFailure();
+            LOGGER.warn("Se descarta un fragmento de receta con JSON invalido: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Anula los recipeId que no existen en el catalogo con una sola consulta para toda la respuesta.
+     */
+    private List<RecommendationResponse> validateRecipeIds(List<RecommendationResponse> recommendations) {
+        List<Long> candidateIds = recommendations.stream()
+            .map(RecommendationResponse::recipeId)
+            .filter(id -> id != null)
+            .toList();
+        if (candidateIds.isEmpty()) {
+            return recommendations;
+        }
+        Set<Long> existing = metrics.recordRecipeIdValidation(() -> recipeIdValidator.findExisting(candidateIds));
+        return recommendations.stream()
+            .map(r -> r.recipeId() == null || existing.contains(r.recipeId()) ? r : withoutRecipeId(r))
+            .toList();
+    }
+
+    private RecommendationResponse withoutRecipeId(RecommendationResponse recommendation) {
+        return new RecommendationResponse(
+            null,
+            recommendation.title(),
+            recommendation.description(),
+            recommendation.instructions(),
+            recommendation.prepTimeMinutes(),
+            recommendation.difficulty(),
+            recommendation.imageUrl(),
+            recommendation.matchScore(),
+            recommendation.missingIngredients(),
+            recommendation.ingredients()
+        );
+    }
+
+    private StringReader skip(StringReader reader, int chars) throws IOException {
+        long skipped = 0;
+        while (skipped < chars) {
+            skipped += reader.skip(chars - skipped);
+        }
+        return reader;
+    }
+
+    /**
+     * Lee un objeto receta; el parser debe estar en START_OBJECT y queda en su END_OBJECT.
+     */
+    private RecommendationResponse readRecommendation(JsonParser parser) throws IOException {
+        Long recipeId = null;
+        String title = null;
+        String description = null;
+        String instructions = null;
+        Integer prepTime = null;
+        String difficulty = null;
+        String image = null;
+        double score = DEFAULT_MATCH_SCORE;
+        List<String> missing = new ArrayList<>();
+        List<RecommendationIngredientDto> ingredients = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "recipeId" -> recipeId = readRecipeId(parser, value);
+                case "title" -> title = readText(parser, value);
+                case "description" -> description = readText(parser, value);
+                case "instructions" -> instructions = readText(parser, value);
+                case "prepTimeMinutes" -> prepTime = readInteger(parser, value);
+                case "difficulty" -> difficulty = readText(parser, value);
+                case "imageUrl" -> image = readText(parser, value);
+                case "matchScore" -> score = normalizeMatchScore(readDouble(parser, value, DEFAULT_MATCH_SCORE));
+                case "missingIngredients" -> readMissingIngredients(parser, value, missing);
+                case "ingredients" -> readIngredients(parser, value, ingredients);
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new RecommendationResponse(
+            recipeId,
+            RecommendationText.truncate(title != null ? title : DEFAULT_TITLE, RecommendationText.MAX_TITLE_LENGTH),
+            RecommendationText.truncate(description, RecommendationText.MAX_DESCRIPTION_LENGTH),
+            RecommendationText.truncate(instructions, RecommendationText.MAX_INSTRUCTIONS_LENGTH),
+            prepTime,
+            difficulty,
+            image,
+            score,
+            missing,
+            ingredients
+        );
+    }
+
+    private Long readRecipeId(JsonParser parser, JsonToken value) throws IOException {
+        Long candidate = readLong(parser, value);
+        return candidate != null && candidate > 0 ? candidate : null;
+    }
+
+    private void readMissingIngredients(JsonParser parser, JsonToken value, List<String> target) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String name = readText(parser, token);
+            if (StringUtils.hasText(name)) {
+                target.add(name.trim());
+            }
+        }
+    }
+
+    private void readIngredients(JsonParser parser, JsonToken value, List<RecommendationIngredientDto> target)
+        throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String name = null;
+            Double quantity = null;
+            String unit = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readText(parser, fieldValue);
+                    case "quantity" -> quantity = fieldValue == JsonToken.VALUE_NULL
+                        ? null
+                        : readDouble(parser, fieldValue, 0.0);
+                    case "unit" -> unit = readText(parser, fieldValue);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (StringUtils.hasText(name)) {
+                target.add(new RecommendationIngredientDto(name.trim(), quantity, unit));
+            }
+        }
+    }
+
+    /**
+     * Escalares se leen como texto (igual que JsonNode.asText); objetos, arreglos y null dan null.
+     */
+    private String readText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == null || value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private Long readLong(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getValueAsLong();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getValueAsLong(0L);
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private Integer readInteger(JsonParser parser, JsonToken value) throws IOException {
+        Long number = readLong(parser, value);
+        return number != null ? number.intValue() : null;
+    }
+
+    private double readDouble(JsonParser parser, JsonToken value, double defaultValue) throws IOException {
+        if (value != null && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+            return parser.getValueAsDouble(defaultValue);
+        }
+        parser.skipChildren();
+        return defaultValue;
+    }
+
+    private double normalizeMatchScore(double rawScore) {
+        if (Double.isNaN(rawScore)) {
+            return DEFAULT_MATCH_SCORE;
+        }
+        double normalized = rawScore;
+        if (rawScore > 1.0) {
+            normalized = rawScore / 100.0;
+        }
+        if (normalized < 0) {
+            normalized = 0;
+        }
+        if (normalized > 1.0) {
+            normalized = 1.0;
+        }
+        return normalized;
+    }
+}
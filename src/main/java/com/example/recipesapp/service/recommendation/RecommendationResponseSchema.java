@@ -0,0 +1,86 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Esquema de salida estructurada (subconjunto OpenAPI que acepta Gemini en responseSchema)
+ * derivado de los componentes de RecommendationResponse, para que el DTO y lo que se le pide
+ * a la IA no se desincronicen. Los numeros envueltos (Long, Integer, Double) y los campos de
+ * NULLABLE son opcionales; el resto es obligatorio. Los campos de SERVER_SIDE no se piden.
+ */
+public final class RecommendationResponseSchema {
+
+    private static final Set<String> SERVER_SIDE = Set.of("fallback");
+    private static final Set<String> NULLABLE = Set.of("imageUrl");
+
+    private static final Map<String, Object> GEMINI_SCHEMA = Map.of(
+        "type", "ARRAY",
+        "items", objectSchema(RecommendationResponse.class)
+    );
+
+    private RecommendationResponseSchema() {
+    }
+
+    public static Map<String, Object> gemini() {
+        return GEMINI_SCHEMA;
+    }
+
+    private static Map<String, Object> objectSchema(Class<?> recordType) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        for (RecordComponent component : recordType.getRecordComponents()) {
+            String name = component.getName();
+            if (SERVER_SIDE.contains(name)) {
+                continue;
+            }
+            Map<String, Object> property = new LinkedHashMap<>(typeSchema(component.getGenericType()));
+            boolean nullable = NULLABLE.contains(name) || isBoxedNumber(component.getType());
+            if (nullable) {
+                property.put("nullable", true);
+            } else {
+                required.add(name);
+            }
+            properties.put(name, Map.copyOf(property));
+        }
+        return Map.of(
+            "type", "OBJECT",
+            "properties", properties,
+            "required", List.copyOf(required)
+        );
+    }
+
+    private static Map<String, Object> typeSchema(Type type) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == List.class) {
+            return Map.of("type", "ARRAY", "items", typeSchema(parameterized.getActualTypeArguments()[0]));
+        }
+        Class<?> raw = (Class<?>) type;
+        if (raw == String.class) {
+            return Map.of("type", "STRING");
+        }
+        if (raw == Long.class || raw == long.class || raw == Integer.class || raw == int.class) {
+            return Map.of("type", "INTEGER");
+        }
+        if (raw == Double.class || raw == double.class) {
+            return Map.of("type", "NUMBER");
+        }
+        if (raw == Boolean.class || raw == boolean.class) {
+            return Map.of("type", "BOOLEAN");
+        }
+        if (raw.isRecord()) {
+            return objectSchema(raw);
+        }
+        throw new IllegalStateException("Tipo sin equivalente en el esquema de Gemini: " + raw.getName());
+    }
+
+    private static boolean isBoxedNumber(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Double.class;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.RecommendationResponse;
+import java.util.List;
+
+/**
+ * Estimacion aproximada de la memoria retenida por una lista de recomendaciones,
+ * usada para acotar caches y almacenes en bytes y no solo en numero de entradas.
+ */
+public final class RecommendationSizeEstimator {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int STRING_OVERHEAD = 40;
+
+    private RecommendationSizeEstimator() {
+    }
+
+    public static long estimateBytes(List<RecommendationResponse> recommendations) {
+        if (recommendations == null) {
+            return 0;
+        }
+        long total = OBJECT_OVERHEAD + (long) REFERENCE_SIZE * recommendations.size();
+        for (RecommendationResponse recommendation : recommendations) {
+            total += OBJECT_OVERHEAD + 10L * REFERENCE_SIZE;
+            total += sizeOf(recommendation.title());
+            total += sizeOf(recommendation.description());
+            total += sizeOf(recommendation.instructions());
+            total += sizeOf(recommendation.difficulty());
+            total += sizeOf(recommendation.imageUrl());
+            if (recommendation.missingIngredients() != null) {
+                for (String missing : recommendation.missingIngredients()) {
+                    total += REFERENCE_SIZE + sizeOf(missing);
+                }
+            }
+            if (recommendation.ingredients() != null) {
+                for (RecommendationIngredientDto ingredient : recommendation.ingredients()) {
+                    total += REFERENCE_SIZE + OBJECT_OVERHEAD + 3L * REFERENCE_SIZE
+                        + sizeOf(ingredient.name()) + sizeOf(ingredient.unit());
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long sizeOf(String value) {
+        // Compact strings: 1 byte por caracter Latin-1, 2 en el peor caso; se asume el peor.
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+}
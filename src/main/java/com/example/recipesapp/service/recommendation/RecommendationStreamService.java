@@ -0,0 +1,127 @@
+package com.example.recipesapp.service.recommendation;
+
+import com.example.recipesapp.dto.MessageResponse;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.service.job.RecommendationJobExecutor;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Entrega recomendaciones por Server-Sent Events a medida que la IA las genera: cada objeto
+ * del arreglo JSON se envia como evento "recommendation" en cuanto se cierra, seguido de "done"
+ * (o "error"). Usa la misma cadena de motores que el GET (agrupacion, cache, catalogo local y
+ * respaldo); solo el paso de la IA cambia a streaming.
+ */
+@Service
+public class RecommendationStreamService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationStreamService.class);
+
+    private final RecommendationEngine recommendationEngine;
+    private final RecommendationJobExecutor executor;
+    private final RecommendationRateLimiter rateLimiter;
+    private final long timeoutMillis;
+
+    public RecommendationStreamService(
+        RecommendationEngine recommendationEngine,
+        RecommendationJobExecutor executor,
+        RecommendationRateLimiter rateLimiter,
+        @Value("${app.recommendations.stream.timeout:90s}") Duration timeout
+    ) {
+        this.recommendationEngine = recommendationEngine;
+        this.executor = executor;
+        this.rateLimiter = rateLimiter;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Abre el stream SSE; la generacion corre en RecommendationJobExecutor, por lo que se aplica
+     * la misma admision (HTTP 429) que a los jobs, ademas del rate limit por usuario. Como en el
+     * GET, un resultado en cache no consume cuota, y si el executor rechaza la peticion el token
+     * se devuelve.
+     */
+    public SseEmitter openStream(PantrySnapshot pantry) {
+        boolean charged = recommendationEngine.cached(pantry).isEmpty();
+        if (charged) {
+            rateLimiter.acquire(pantry.userId());
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        try {
+            executor.submit(() -> streamTo(emitter, pantry));
+        } catch (RuntimeException ex) {
+            if (charged) {
+                rateLimiter.release(pantry.userId());
+            }
+            throw ex;
+        }
+        return emitter;
+    }
+
+    public List<RecommendationResponse> stream(PantrySnapshot pantry, Consumer<RecommendationResponse> onRecommendation) {
+        return recommendationEngine.recommendStreaming(pantry, onRecommendation);
+    }
+
+    private void streamTo(SseEmitter emitter, PantrySnapshot pantry) {
+        ClientConnection client = new ClientConnection(emitter);
+        try {
+            List<RecommendationResponse> recommendations =
+                stream(pantry, recommendation -> client.send("recommendation", recommendation));
+            client.send("done", Map.of("count", recommendations.size()));
+        } catch (RuntimeException ex) {
+            if (!client.isClosed()) {
+                LOGGER.warn("Fallo el stream de recomendaciones", ex);
+                client.send("error", new MessageResponse(ex.getMessage()));
+            }
+        }
+        client.complete();
+    }
+
+    /**
+     * Si el cliente cierra la conexion se dejan de enviar eventos, pero la generacion sigue: su
+     * resultado queda en la cache y lo reciben las peticiones agrupadas con este stream, que no
+     * deben fallar porque un navegador se fue.
+     */
+    private static final class ClientConnection {
+
+        private final SseEmitter emitter;
+        private IOException failure;
+
+        private ClientConnection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void send(String eventName, Object data) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+
+        boolean isClosed() {
+            return failure != null;
+        }
+
+        void complete() {
+            if (failure == null) {
+                emitter.complete();
+                return;
+            }
+            // El cliente cerro la conexion: no hay a quien avisar.
+            LOGGER.debug("Stream de recomendaciones cancelado por el cliente: {}", failure.getMessage());
+            emitter.completeWithError(failure);
+        }
+    }
+}
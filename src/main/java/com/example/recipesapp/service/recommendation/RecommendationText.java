@@ -0,0 +1,56 @@
+package com.example.recipesapp.service.recommendation;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Limites de longitud (en bytes UTF-8) de los campos de texto de una receta y utilidades para respetarlos.
+ */
+public final class RecommendationText {
+
+    public static final int MAX_TITLE_LENGTH = 150;
+    public static final int MAX_DESCRIPTION_LENGTH = 500;
+    public static final int MAX_INSTRUCTIONS_LENGTH = 60000;
+
+    private RecommendationText() {
+    }
+
+    /**
+     * Recorta a maxLength bytes UTF-8 sin partir caracteres. Cuenta los bytes de cada caracter en
+     * una sola pasada, en lugar de recodificar el texto por cada longitud candidata.
+     */
+    public static String truncate(String value, int maxLength) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        String trimmed = value.trim();
+        // Un char ocupa a lo sumo 3 bytes (un par sustituto, 4 bytes en 2 chars): no hace falta contar.
+        if ((long) trimmed.length() * 3 <= maxLength) {
+            return trimmed;
+        }
+        int bytes = 0;
+        int index = 0;
+        while (index < trimmed.length()) {
+            char current = trimmed.charAt(index);
+            int width;
+            int chars = 1;
+            if (current < 0x80) {
+                width = 1;
+            } else if (current < 0x800) {
+                width = 2;
+            } else if (Character.isHighSurrogate(current)
+                && index + 1 < trimmed.length()
+                && Character.isLowSurrogate(trimmed.charAt(index + 1))) {
+                width = 4;
+                chars = 2;
+            } else {
+                width = 3;
+            }
+            if (bytes + width > maxLength) {
+                return trimmed.substring(0, index);
+            }
+            bytes += width;
+            index += chars;
+        }
+        return trimmed;
+    }
+}
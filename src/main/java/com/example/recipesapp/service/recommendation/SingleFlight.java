@@ -0,0 +1,80 @@
+package com.example.recipesapp.service.recommendation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes con la misma clave: la primera ejecuta el trabajo y las
+ * siguientes se enganchan a su CompletableFuture en lugar de repetirlo. Las variantes sincrona
+ * y asincrona comparten el mismo mapa, por lo que tambien se agrupan entre si.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = work.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Como execute, pero sin bloquear: cada llamador recibe una copia del future compartido,
+     * para que completarla o cancelarla no afecte a los demas.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> work) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.copy();
+        }
+        created.whenComplete((value, error) -> inFlight.remove(key, created));
+        try {
+            work.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    created.completeExceptionally(
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error
+                    );
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+        }
+        return created.copy();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.recipesapp.config;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+/**
+ * El scraper de Prometheus no tiene sesion: Actuator se autoriza por red de origen, no por login.
+ */
+@SpringBootTest(properties = "app.management.allowed-networks=127.0.0.1/32,10.0.0.0/8")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusIsServedToTheManagementNetworksWithoutASession() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(from("127.0.0.1")))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("recommendation_")));
+        mockMvc.perform(get("/actuator/prometheus").with(from("10.20.30.40")))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void actuatorIsForbiddenOutsideTheManagementNetworksEvenWithASession() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(from("203.0.113.7")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(from("203.0.113.7")).with(user("cliente")))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void apiStillRequiresASession() throws Exception {
+        mockMvc.perform(get("/api/recommendations").with(from("127.0.0.1")))
+            .andExpect(status().isForbidden());
+    }
+
+    private static RequestPostProcessor from(String remoteAddress) {
+        return request -> {
+            request.setRemoteAddr(remoteAddress);
+            return request;
+        };
+    }
+}
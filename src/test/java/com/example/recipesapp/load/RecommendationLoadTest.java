@@ -0,0 +1,256 @@
+package com.example.recipesapp.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.support.GeminiStubServer;
+import com.example.recipesapp.support.GeminiStubServer.LoadProfile;
+import com.example.recipesapp.support.LoadReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Prueba de carga de punta a punta: la aplicacion real sobre H2 contra GeminiStubServer, sin red ni
+ * cuota de Gemini. Cada usuario virtual se registra, inicia sesion y carga su despensa; luego todos
+ * golpean a la vez el endpoint sincronico, los jobs (con long-poll) y el CRUD de recetas. Imprime
+ * throughput y percentiles por operacion.
+ * Excluida del build normal; ejecutar con ./mvnw -Pload-tests test. Se ajusta con -Dload.users,
+ * -Dload.iterations, -Dload.stub.median-ms, -Dload.stub.p99-ms, -Dload.stub.error-rate y
+ * -Dload.stub.payload-bytes.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class RecommendationLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 16);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 10);
+    private static final LoadProfile STUB_PROFILE = new LoadProfile(
+        Duration.ofMillis(Long.getLong("load.stub.median-ms", 300)),
+        Duration.ofMillis(Long.getLong("load.stub.p99-ms", 1500)),
+        Double.parseDouble(System.getProperty("load.stub.error-rate", "0.02")),
+        503,
+        Integer.getInteger("load.stub.payload-bytes", 8192)
+    );
+    private static final String[] PANTRY = {"arroz", "cebolla", "ajo", "tomate", "huevo"};
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final GeminiStubServer STUB = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    private List<VirtualUser> users;
+
+    @DynamicPropertySource
+    static void pointToStub(DynamicPropertyRegistry registry) {
+        registry.add("ai.gemini.api-key", () -> "load-test-key");
+        registry.add("ai.gemini.api-url", STUB::generateContentUrl);
+        registry.add("ai.gemini.router.providers", () -> "");
+        // Los usuarios virtuales hablan HTTP plano: con la cookie Secure el cliente no reenvia la sesion.
+        registry.add("server.servlet.session.cookie.secure", () -> "false");
+        // Cada peticion debe llegar a la IA: sin cache, sin catalogo local ni precalculo, sin rate limit.
+        registry.add("app.recommendations.cache.enabled", () -> "false");
+        registry.add("app.recommendations.local-match.enabled", () -> "false");
+        registry.add("app.recommendations.precompute.enabled", () -> "false");
+        registry.add("app.recommendations.rate-limit.enabled", () -> "false");
+        registry.add("app.recommendations.jobs.queue-capacity", () -> String.valueOf(USERS * 4));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void createUsers() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            VirtualUser user = new VirtualUser("http://localhost:" + port);
+            user.signUp("load-" + run + "-" + i);
+            // Cantidades distintas por usuario: cada despensa tiene su propia huella y no se agrupan llamadas.
+            for (String ingredient : PANTRY) {
+                user.call("POST", "/api/pantry", Map.of("ingredientName", ingredient, "quantity", 100 + i, "unit", "g"));
+            }
+            users.add(user);
+        }
+    }
+
+    @Test
+    void syncRecommendations() throws Exception {
+        LoadReport report = new LoadReport("GET /api/recommendations");
+        runConcurrently(user -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                HttpResponse<String> response = user.call("GET", "/api/recommendations", null);
+                report.record("recommendations.get", System.nanoTime() - start, response.statusCode() == 200);
+            }
+        });
+        System.out.println(report.summary());
+
+        assertEquals(USERS * ITERATIONS, report.count("recommendations.get"));
+        assertTrue(report.errors("recommendations.get") <= USERS * ITERATIONS / 20, report.summary());
+    }
+
+    @Test
+    void recommendationJobs() throws Exception {
+        LoadReport report = new LoadReport("POST /api/recommendations/jobs + long-poll");
+        runConcurrently(user -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                HttpResponse<String> created = user.call("POST", "/api/recommendations/jobs", null);
+                report.record("jobs.create", System.nanoTime() - start, created.statusCode() == 202);
+                if (created.statusCode() != 202) {
+                    continue;
+                }
+                String jobId = OBJECT_MAPPER.readTree(created.body()).path("jobId").asText();
+                String status = "PENDING";
+                for (int poll = 0; poll < 10 && "PENDING".equals(status); poll++) {
+                    long pollStart = System.nanoTime();
+                    HttpResponse<String> job = user.call("GET", "/api/recommendations/jobs/" + jobId + "?waitMs=10000", null);
+                    report.record("jobs.poll", System.nanoTime() - pollStart, job.statusCode() == 200);
+                    status = job.statusCode() == 200 ? OBJECT_MAPPER.readTree(job.body()).path("status").asText() : "ERROR";
+                }
+                report.record("jobs.end-to-end", System.nanoTime() - start, "DONE".equals(status));
+            }
+        });
+        System.out.println(report.summary());
+
+        assertEquals(USERS * ITERATIONS, report.count("jobs.end-to-end"));
+        assertTrue(report.errors("jobs.end-to-end") <= USERS * ITERATIONS / 20, report.summary());
+    }
+
+    @Test
+    void recipeCrud() throws Exception {
+        LoadReport report = new LoadReport("/api/recipes CRUD");
+        runConcurrently(user -> {
+            List<Map<String, Object>> ingredients = new ArrayList<>();
+            for (JsonNode item : OBJECT_MAPPER.readTree(user.call("GET", "/api/pantry", null).body())) {
+                ingredients.add(Map.of("ingredientId", item.path("ingredientId").asLong(), "quantity", 1, "unit", "g"));
+            }
+            for (int i = 0; i < ITERATIONS; i++) {
+                Map<String, Object> recipe = Map.of(
+                    "name", "Receta de carga " + i,
+                    "description", "Creada por la prueba de carga",
+                    "instructions", "Mezclar todo y cocinar 20 minutos.",
+                    "prepTimeMinutes", 20,
+                    "difficulty", "EASY",
+                    "ingredients", ingredients
+                );
+                long start = System.nanoTime();
+                HttpResponse<String> created = user.call("POST", "/api/recipes", recipe);
+                report.record("recipes.create", System.nanoTime() - start, created.statusCode() == 201);
+                if (created.statusCode() != 201) {
+                    continue;
+                }
+                long id = OBJECT_MAPPER.readTree(created.body()).path("id").asLong();
+                timed(report, "recipes.get", 200, () -> user.call("GET", "/api/recipes/" + id, null));
+                timed(report, "recipes.update", 200, () -> user.call("PUT", "/api/recipes/" + id, recipe));
+                timed(report, "recipes.list-mine", 200, () -> user.call("GET", "/api/recipes/me", null));
+                timed(report, "recipes.delete", 200, () -> user.call("DELETE", "/api/recipes/" + id, null));
+            }
+        });
+        System.out.println(report.summary());
+
+        assertEquals(USERS * ITERATIONS, report.count("recipes.create"));
+        assertEquals(0, report.errors("recipes.create") + report.errors("recipes.update") + report.errors("recipes.delete"), report.summary());
+    }
+
+    private void runConcurrently(UserScenario scenario) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (VirtualUser user : users) {
+                running.add(executor.submit(() -> {
+                    scenario.run(user);
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+    }
+
+    private static void timed(LoadReport report, String operation, int expectedStatus, Call call) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = call.send();
+        report.record(operation, System.nanoTime() - start, response.statusCode() == expectedStatus);
+    }
+
+    private static GeminiStubServer startStub() {
+        try {
+            return GeminiStubServer.start().simulate(STUB_PROFILE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface UserScenario {
+        void run(VirtualUser user) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        HttpResponse<String> send() throws Exception;
+    }
+
+    /**
+     * Cliente HTTP con su propia cookie de sesion, como un navegador.
+     */
+    private static final class VirtualUser {
+
+        private final String baseUrl;
+        private final HttpClient client = HttpClient.newBuilder()
+            .cookieHandler(new CookieManager())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        private VirtualUser(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private void signUp(String username) throws Exception {
+            String password = "load-secret";
+            call("POST", "/api/auth/register", Map.of("username", username, "password", password, "email", username + "@load.test"));
+            HttpResponse<String> login = call("POST", "/api/auth/login", Map.of("username", username, "password", password));
+            assertEquals(200, login.statusCode(), login.body());
+        }
+
+        private HttpResponse<String> call(String method, String path, Object body) throws Exception {
+            HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(body))
+                : HttpRequest.BodyPublishers.noBody();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, publisher)
+                .build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
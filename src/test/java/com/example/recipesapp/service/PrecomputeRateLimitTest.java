@@ -0,0 +1,116 @@
+package com.example.recipesapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.dto.PantryItemRequest;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.model.User;
+import com.example.recipesapp.repository.UserRepository;
+import com.example.recipesapp.support.GeminiStubServer;
+import com.example.recipesapp.support.GeminiStubServer.LoadProfile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Editar la despensa dispara el precalculo; el GET siguiente debe salir de la cache sin gastar
+ * la cuota del usuario, aunque el precalculo haya corrido varias veces.
+ */
+@SpringBootTest(properties = {
+    "ai.gemini.router.providers=",
+    "app.recommendations.local-match.enabled=false",
+    "app.recommendations.precompute.debounce=100ms",
+    "app.recommendations.rate-limit.user.capacity=2",
+    "app.recommendations.rate-limit.user.refill-interval=1h"
+})
+@ActiveProfiles("test")
+class PrecomputeRateLimitTest {
+
+    private static final GeminiStubServer STUB = startStub();
+
+    @Autowired
+    private PantryService pantryService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @DynamicPropertySource
+    static void pointToStub(DynamicPropertyRegistry registry) {
+        registry.add("ai.gemini.api-url", STUB::generateContentUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void createUser() {
+        String username = "precompute-" + UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(new User(username, "secret", username + "@test.local"));
+    }
+
+    @Test
+    void editEditThenGetIsServedFromTheCacheWithoutSpendingTheUserQuota() throws Exception {
+        int aiCallsBefore = STUB.requestCount();
+
+        asUser(() -> pantryService.addOrUpdate(new PantryItemRequest(null, "arroz", null, 200.0, "g")));
+        awaitPrecomputed();
+        asUser(() -> pantryService.addOrUpdate(new PantryItemRequest(null, "cebolla", null, 2.0, "unidad")));
+        awaitPrecomputed();
+
+        // La cuota del usuario es 2: tres GET solo pasan si ni el precalculo ni la cache la consumen.
+        for (int i = 0; i < 3; i++) {
+            List<RecommendationResponse> recommendations = asUser(recommendationService::generateRecommendationsForCurrentUser);
+            assertFalse(recommendations.isEmpty());
+        }
+        assertEquals(2, STUB.requestCount() - aiCallsBefore, "solo los dos precalculos llaman a la IA");
+    }
+
+    private void awaitPrecomputed() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!recommendationService.hasCachedRecommendations(recommendationService.loadPantrySnapshot(user.getId()))) {
+            assertTrue(System.nanoTime() < deadline, "el precalculo no lleno la cache");
+            Thread.sleep(20);
+        }
+    }
+
+    private <T> T asUser(Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of())
+        );
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static GeminiStubServer startStub() {
+        try {
+            return GeminiStubServer.start().simulate(LoadProfile.fixed(Duration.ZERO, 2048));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.recipesapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.recipesapp.dto.RecipeResponse;
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.SaveRecommendationRequest;
+import com.example.recipesapp.model.Recipe;
+import com.example.recipesapp.model.User;
+import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecommendationSaveConcurrencyTest {
+
+    private static final int CONCURRENT_SAVES = 8;
+    private static final List<RecommendationIngredientDto> INGREDIENTS = List.of(
+        new RecommendationIngredientDto("arroz", 200.0, "g"),
+        new RecommendationIngredientDto("cebolla", 1.0, "unidad")
+    );
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String username;
+
+    @BeforeEach
+    void createUser() {
+        username = "save-" + UUID.randomUUID().toString().substring(0, 8);
+        userRepository.save(new User(username, "secret", username + "@test.local"));
+        // Los ingredientes ya existen: la unica carrera que queda es la de la receta.
+        asUser(() -> recommendationService.saveRecommendation(request("Semilla " + username), null));
+    }
+
+    @Test
+    void concurrentSavesOfTheSameRecommendationReturnOneRecipe() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            SaveRecommendationRequest request = request("Arroz con cebolla " + username + " " + round);
+            CyclicBarrier start = new CyclicBarrier(CONCURRENT_SAVES);
+            List<Future<RecipeResponse>> saves = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_SAVES)) {
+                for (int i = 0; i < CONCURRENT_SAVES; i++) {
+                    saves.add(executor.submit(() -> {
+                        start.await(5, TimeUnit.SECONDS);
+                        return asUser(() -> recommendationService.saveRecommendation(request, null));
+                    }));
+                }
+                Set<Long> ids = new HashSet<>();
+                for (Future<RecipeResponse> save : saves) {
+                    ids.add(save.get(30, TimeUnit.SECONDS).id());
+                }
+
+                assertEquals(1, ids.size(), "todos los guardados deben devolver la misma receta");
+                Set<Long> stored = recipeRepository.findAll().stream()
+                    .filter(recipe -> recipe.getName().equals(request.title()))
+                    .map(Recipe::getId)
+                    .collect(Collectors.toSet());
+                assertEquals(ids, stored);
+            }
+        }
+    }
+
+    private SaveRecommendationRequest request(String title) {
+        return new SaveRecommendationRequest(null, title, "Descripcion", "Cocinar el arroz con la cebolla.", 20, "EASY", null, INGREDIENTS);
+    }
+
+    private <T> T asUser(Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(username, null, List.of())
+        );
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
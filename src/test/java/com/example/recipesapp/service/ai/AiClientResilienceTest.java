@@ -0,0 +1,220 @@
+package com.example.recipesapp.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.service.GeminiClientService;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import com.example.recipesapp.support.GeminiStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AiClientResilienceTest {
+
+    private GeminiStubServer stub;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = GeminiStubServer.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() {
+        stub.respond(503, null).respond(500, null).respond(200, "[]");
+        AiClient client = retrying(gemini(Duration.ofSeconds(2)), 3);
+
+        assertEquals("[]", client.generateContent("prompt"));
+        assertEquals(3, stub.requestCount());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        stub.respond(400, null);
+        AiClient client = retrying(gemini(Duration.ofSeconds(2)), 3);
+
+        AiServiceException ex = assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        assertEquals(400, ex.getStatusCode());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void asyncCallsRetryWithoutBlockingTheCaller() throws Exception {
+        stub.respond(503, null).respond(200, "[]");
+        AiClient client = retrying(gemini(Duration.ofSeconds(2)), 3);
+
+        assertEquals("[]", client.generateContentAsync("prompt").get(5, TimeUnit.SECONDS));
+        assertEquals(2, stub.requestCount());
+    }
+
+    @Test
+    void asyncCallsFailWithStatusCode() {
+        stub.respond(400, null);
+        AiClient client = retrying(gemini(Duration.ofSeconds(2)), 3);
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> client.generateContentAsync("prompt").join());
+        assertTrue(ex.getCause() instanceof AiServiceException);
+        assertEquals(400, ((AiServiceException) ex.getCause()).getStatusCode());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void readTimeoutBoundsSlowResponses() {
+        stub.respondAfter(Duration.ofSeconds(5), 200, "[]");
+        AiClient client = gemini(Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingUpstream() {
+        stub.respond(500, null);
+        CircuitBreakerAiClientDecorator client =
+            new CircuitBreakerAiClientDecorator(gemini(Duration.ofSeconds(2)), 2, Duration.ofMinutes(1));
+
+        assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        assertEquals(CircuitBreakerAiClientDecorator.State.OPEN, client.state());
+
+        assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        assertEquals(2, stub.requestCount());
+    }
+
+    @Test
+    void halfOpenTrialClosesCircuitAfterRecovery() throws Exception {
+        stub.respond(500, null).respond(200, "[]");
+        CircuitBreakerAiClientDecorator client =
+            new CircuitBreakerAiClientDecorator(gemini(Duration.ofSeconds(2)), 1, Duration.ofMillis(50));
+
+        assertThrows(AiServiceException.class, () -> client.generateContent("prompt"));
+        Thread.sleep(100);
+
+        assertEquals("[]", client.generateContent("prompt"));
+        assertEquals(CircuitBreakerAiClientDecorator.State.CLOSED, client.state());
+    }
+
+    @Test
+    void asyncHedgeCancelsTheLosingCall() throws Exception {
+        stub.respond(200, "warm-up")
+            .respondAfter(Duration.ofSeconds(5), 200, "slow")
+            .respond(200, "hedge");
+        List<CompletableFuture<String>> upstream = new CopyOnWriteArrayList<>();
+        AiClient gemini = gemini(Duration.ofSeconds(10));
+        AiClient spy = new AiClient() {
+            @Override
+            public String generateContent(String prompt) {
+                return gemini.generateContent(prompt);
+            }
+
+            @Override
+            public CompletableFuture<String> generateContentAsync(String prompt) {
+                CompletableFuture<String> call = gemini.generateContentAsync(prompt);
+                upstream.add(call);
+                return call;
+            }
+        };
+        HedgingAiClientDecorator client = new HedgingAiClientDecorator(
+            retrying(spy, 3), true, 0.95, Duration.ofMillis(50), 1.0, 16, 1
+        );
+
+        // Una muestra de latencia basta (min-samples=1) para habilitar el hedge en la siguiente llamada.
+        assertEquals("warm-up", client.generateContentAsync("prompt").get(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        assertEquals("hedge", client.generateContentAsync("prompt").get(5, TimeUnit.SECONDS));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+        assertEquals(3, upstream.size());
+        // Sin cancelacion la llamada lenta seguiria pendiente (el stub tarda 5 s) y get venceria. Segun
+        // por donde llegue, el future queda cancelado o fallido con el intercambio abortado como causa.
+        Throwable outcome = upstream.get(1).handle((response, error) -> error).get(2, TimeUnit.SECONDS);
+        while (outcome != null && !(outcome instanceof CancellationException)) {
+            outcome = outcome.getCause();
+        }
+        assertTrue(outcome instanceof CancellationException, "la llamada lenta debe cancelarse al ganar el hedge");
+        assertEquals(3, stub.requestCount());
+        client.shutdown();
+    }
+
+    @Test
+    void clientDisconnectDuringStreamIsNotAnAiFailure() {
+        stub.respond(200, "[{\"title\":\"Arroz con huevo\"},{\"title\":\"Tortilla\"}]");
+        RoutingAiClient router = new RoutingAiClient(Map.of("gemini", gemini(Duration.ofSeconds(2))), 0.3, 0.0, 0.5);
+        CircuitBreakerAiClientDecorator breaker =
+            new CircuitBreakerAiClientDecorator(retrying(router, 3), 1, Duration.ofMinutes(1));
+        AiClient client = new LoggingAiClientDecorator(breaker, new RecommendationMetrics(new SimpleMeterRegistry()));
+        UncheckedIOException disconnect = new UncheckedIOException(new IOException("Broken pipe"));
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> client.streamContent("prompt", chunk -> {
+            received.add(chunk);
+            throw disconnect;
+        }));
+
+        // Llega sin envolver, sin reintentos, y ni el breaker (umbral 1) ni el router lo cuentan.
+        assertSame(disconnect, thrown);
+        assertEquals(1, received.size());
+        assertEquals(1, stub.requestCount());
+        assertEquals(CircuitBreakerAiClientDecorator.State.CLOSED, breaker.state());
+        assertEquals(0.0, router.stats().get(0).errorRate(), 0.0001);
+    }
+
+    @Test
+    void streamDeliversChunksAndProviderErrorsStillCount() {
+        String text = "[{\"title\":\"Arroz con huevo\"},{\"title\":\"Tortilla\"}]";
+        stub.respond(200, text).respond(503, null);
+        CircuitBreakerAiClientDecorator breaker =
+            new CircuitBreakerAiClientDecorator(gemini(Duration.ofSeconds(2)), 1, Duration.ofMinutes(1));
+        StringBuilder streamed = new StringBuilder();
+
+        breaker.streamContent("prompt", streamed::append);
+        AiServiceException ex = assertThrows(AiServiceException.class, () -> breaker.streamContent("prompt", streamed::append));
+
+        assertEquals(text, streamed.toString());
+        assertEquals(503, ex.getStatusCode());
+        assertEquals(CircuitBreakerAiClientDecorator.State.OPEN, breaker.state());
+    }
+
+    private GeminiClientService gemini(Duration readTimeout) {
+        return new GeminiClientService(
+            "test-key",
+            stub.generateContentUrl(),
+            "",
+            Duration.ofSeconds(1),
+            readTimeout,
+            readTimeout,
+            true,
+            0
+        );
+    }
+
+    private AiClient retrying(AiClient delegate, int maxAttempts) {
+        return new RetryingAiClientDecorator(
+            delegate,
+            maxAttempts,
+            Duration.ofMillis(1),
+            Duration.ofMillis(5),
+            Duration.ofSeconds(5)
+        );
+    }
+}
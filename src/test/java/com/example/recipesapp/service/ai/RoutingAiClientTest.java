@@ -0,0 +1,150 @@
+package com.example.recipesapp.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.exception.AiServiceException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RoutingAiClientTest {
+
+    @Test
+    void sendsMostCallsToTheFastestProvider() {
+        StubProvider slow = new StubProvider("slow", 30);
+        StubProvider fast = new StubProvider("fast", 2);
+        RoutingAiClient router = router(slow, fast, 0.1);
+
+        for (int i = 0; i < 60; i++) {
+            router.generateContent("prompt");
+        }
+
+        assertTrue(fast.calls.get() > 45, "fast=" + fast.calls + " slow=" + slow.calls);
+    }
+
+    @Test
+    void stopsPreferringAFailingProvider() {
+        StubProvider flaky = new StubProvider("flaky", 1);
+        StubProvider steady = new StubProvider("steady", 10);
+        RoutingAiClient router = router(flaky, steady, 0.0);
+        router.generateContent("prompt");
+        router.generateContent("prompt");
+
+        flaky.failing.set(true);
+        for (int i = 0; i < 10; i++) {
+            try {
+                router.generateContent("prompt");
+            } catch (AiServiceException ignored) {
+                // las primeras llamadas al proveedor caido fallan hasta que su tasa de error sube
+            }
+        }
+        int flakyCalls = flaky.calls.get();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("steady", router.generateContent("prompt"));
+        }
+        assertEquals(flakyCalls, flaky.calls.get());
+    }
+
+    @Test
+    void explorationNoticesARecoveredProvider() {
+        StubProvider recovering = new StubProvider("recovering", 1);
+        StubProvider steady = new StubProvider("steady", 10);
+        RoutingAiClient router = router(recovering, steady, 0.2);
+        recovering.failing.set(true);
+        for (int i = 0; i < 20; i++) {
+            try {
+                router.generateContent("prompt");
+            } catch (AiServiceException ignored) {
+                // se espera mientras el proveedor esta caido
+            }
+        }
+
+        recovering.failing.set(false);
+        for (int i = 0; i < 200; i++) {
+            router.generateContent("prompt");
+        }
+
+        int before = recovering.calls.get();
+        for (int i = 0; i < 20; i++) {
+            router.generateContent("prompt");
+        }
+        assertTrue(recovering.calls.get() - before >= 15, "el proveedor recuperado deberia volver a ser el preferido");
+    }
+
+    @Test
+    void clientErrorsDoNotMarkProviderUnhealthy() {
+        StubProvider provider = new StubProvider("only", 1);
+        provider.clientError.set(true);
+        RoutingAiClient router = router(provider, new StubProvider("other", 50), 0.0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(AiServiceException.class, () -> router.generateContent("prompt"));
+        }
+        assertEquals(0.0, router.stats().get(0).errorRate(), 0.0001);
+    }
+
+    @Test
+    void interruptedCallsDoNotMarkProviderUnhealthy() throws Exception {
+        RoutingAiClient router = router(new StubProvider("first", 10_000), new StubProvider("second", 10_000), 0.0);
+
+        // Como el hedge perdedor o el deadline del fallback: cancel(true) interrumpe la llamada.
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                Future<String> call = executor.submit(() -> router.generateContent("prompt"));
+                Thread.sleep(20);
+                call.cancel(true);
+            }
+        }
+
+        for (RoutingAiClient.ProviderStats stats : router.stats()) {
+            assertEquals(0.0, stats.errorRate(), 0.0001, stats.name());
+        }
+    }
+
+    private RoutingAiClient router(StubProvider first, StubProvider second, double explorationRate) {
+        Map<String, AiClient> providers = new LinkedHashMap<>();
+        providers.put(first.name, first);
+        providers.put(second.name, second);
+        return new RoutingAiClient(providers, 0.3, explorationRate, 0.5);
+    }
+
+    private static final class StubProvider implements AiClient {
+
+        private final String name;
+        private final long latencyMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        private final AtomicBoolean clientError = new AtomicBoolean();
+
+        StubProvider(String name, long latencyMillis) {
+            this.name = name;
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public String generateContent(String prompt) {
+            calls.incrementAndGet();
+            if (clientError.get()) {
+                throw new AiServiceException("peticion invalida", 400, null);
+            }
+            if (failing.get()) {
+                throw new AiServiceException("no disponible", 503, null);
+            }
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException ex) {
+                // Como GeminiClientService: restaura la marca y falla con estado 0.
+                Thread.currentThread().interrupt();
+                throw new AiServiceException("La llamada fue interrumpida.", ex);
+            }
+            return name;
+        }
+    }
+}
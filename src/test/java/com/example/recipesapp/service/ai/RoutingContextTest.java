@@ -0,0 +1,27 @@
+package com.example.recipesapp.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Arranca el contexto con varios proveedores: GeminiClientService tiene dos constructores y el
+ * router crea un cliente por modelo con forEndpoint.
+ */
+@SpringBootTest(properties = "ai.gemini.router.providers=gemini-2.5-flash,gemini-2.5-flash-lite")
+@ActiveProfiles("test")
+class RoutingContextTest {
+
+    @Autowired
+    private RoutingAiClient router;
+
+    @Test
+    void createsOneProviderPerConfiguredModel() {
+        List<String> names = router.stats().stream().map(RoutingAiClient.ProviderStats::name).toList();
+        assertEquals(List.of("gemini-2.5-flash", "gemini-2.5-flash-lite"), names);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.recipesapp.service.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.exception.ResourceExpiredException;
+import com.example.recipesapp.model.RecommendationJobStatus;
+import com.example.recipesapp.repository.RecommendationJobRepository;
+import com.example.recipesapp.service.job.DatabaseRecommendationJobStore.ClaimedJob;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = {
+    "app.recommendations.jobs.mode=database",
+    // El worker no debe reclamar jobs por su cuenta durante la prueba.
+    "app.recommendations.jobs.database.poll-interval=1h",
+    "app.recommendations.jobs.database.heartbeat-interval=1h",
+    "app.recommendations.jobs.store.sweep-interval=1h",
+    "app.recommendations.jobs.store.pending-ttl=1s",
+    "app.recommendations.jobs.store.done-ttl=1s",
+    "app.recommendations.jobs.store.error-ttl=1s"
+})
+@ActiveProfiles("test")
+class DatabaseRecommendationJobStoreTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+    private static final Duration TTL = Duration.ofSeconds(1);
+
+    @Autowired
+    private DatabaseRecommendationJobStore store;
+
+    @Autowired
+    private RecommendationJobRepository repository;
+
+    @BeforeEach
+    void emptyQueue() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void eachPendingJobIsClaimedByOneNode() {
+        Set<String> created = Set.of(create("a").getJobId(), create("b").getJobId(), create("c").getJobId());
+
+        List<ClaimedJob> first = store.claim("node-a", 10, LEASE, 3);
+        List<ClaimedJob> second = store.claim("node-b", 10, LEASE, 3);
+
+        assertEquals(created, first.stream().map(ClaimedJob::jobId).collect(Collectors.toSet()));
+        assertTrue(second.isEmpty(), "un lease vigente no se puede reclamar");
+    }
+
+    @Test
+    void onlyTheLeaseOwnerCompletesTheJob() {
+        String jobId = create("owner").getJobId();
+        store.claim("node-a", 1, LEASE, 3);
+
+        assertFalse(store.complete(jobId, "node-b", List.of()));
+        assertTrue(store.complete(jobId, "node-a", List.of()));
+        assertEquals(RecommendationJobStatus.DONE, store.find(jobId).getStatus());
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndTheOldOwnerLosesIt() throws Exception {
+        String jobId = create("lease").getJobId();
+        store.claim("node-a", 1, Duration.ZERO, 3);
+        Thread.sleep(5);
+
+        List<ClaimedJob> reclaimed = store.claim("node-b", 1, LEASE, 3);
+
+        assertEquals(List.of(jobId), reclaimed.stream().map(ClaimedJob::jobId).toList());
+        assertFalse(store.complete(jobId, "node-a", List.of()));
+        assertTrue(store.complete(jobId, "node-b", List.of()));
+    }
+
+    @Test
+    void jobIsFailedAfterMaxAttempts() throws Exception {
+        String jobId = create("attempts").getJobId();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertEquals(1, store.claim("node-a", 1, Duration.ZERO, 2).size());
+            Thread.sleep(5);
+        }
+
+        assertTrue(store.claim("node-a", 1, LEASE, 2).isEmpty());
+        assertEquals(RecommendationJobStatus.ERROR, store.find(jobId).getStatus());
+    }
+
+    @Test
+    void sweepExpiresOldJobsAndLaterPurgesThem() throws Exception {
+        String jobId = create("expire").getJobId();
+        Thread.sleep(TTL.plusMillis(200).toMillis());
+
+        store.sweep(Duration.ofHours(1));
+
+        assertTrue(repository.findById(jobId).orElseThrow().isExpired());
+        assertThrows(ResourceExpiredException.class, () -> store.find(jobId));
+        assertTrue(store.claim("node-a", 10, LEASE, 3).isEmpty(), "un job expirado no se reclama");
+        assertTrue(store.findPending("expire").isEmpty());
+
+        store.sweep(Duration.ZERO);
+
+        assertNull(store.find(jobId));
+    }
+
+    private RecommendationJobService.JobResult create(String coalescingKey) {
+        return store.create(PantrySnapshot.of(1L, List.of()), coalescingKey);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.recipesapp.service.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.recipesapp.controller.RecommendationController;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.model.RecommendationJobStatus;
+import com.example.recipesapp.model.User;
+import com.example.recipesapp.service.CurrentUserService;
+import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.job.RecommendationJobService.JobResult;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import com.example.recipesapp.service.recommendation.PantrySnapshot;
+import com.example.recipesapp.service.recommendation.RecommendationStreamService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class RecommendationJobLongPollTest {
+
+    private static final List<RecommendationResponse> RESULT = List.of(
+        new RecommendationResponse(null, "Arroz con huevo", null, null, null, null, null, 1.0, List.of(), List.of())
+    );
+    private static final Duration DATABASE_RECHECK = Duration.ofSeconds(1);
+
+    private RecommendationService recommendationService;
+    private CurrentUserService currentUser;
+    private CompletableFuture<List<RecommendationResponse>> aiCall;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("long-poll", "secret", "long-poll@test.local");
+        PantrySnapshot pantry = PantrySnapshot.of(1L, List.of());
+        aiCall = new CompletableFuture<>();
+        recommendationService = mock(RecommendationService.class);
+        when(recommendationService.loadPantrySnapshot(any(User.class))).thenReturn(pantry);
+        when(recommendationService.generateRecommendationsAsync(pantry)).thenAnswer(invocation -> aiCall);
+        currentUser = mock(CurrentUserService.class);
+        when(currentUser.getCurrentUser()).thenReturn(user);
+    }
+
+    @Test
+    void longPollCompletesAsSoonAsTheJobFinishes() throws Exception {
+        RecommendationJobService service = memoryService();
+        JobResult job = service.createJob();
+
+        CompletableFuture<JobResult> poll = service.awaitJob(job.getJobId(), Duration.ofSeconds(10));
+        assertFalse(poll.isDone());
+        long start = System.nanoTime();
+        aiCall.complete(RESULT);
+
+        JobResult completed = poll.get(2, TimeUnit.SECONDS);
+        assertEquals(RecommendationJobStatus.DONE, completed.getStatus());
+        assertEquals(RESULT, completed.getRecommendations());
+        assertTrue(elapsedMillis(start) < 1_000, "el long-poll espero el timeout en vez de responder al terminar");
+    }
+
+    @Test
+    void longPollTimesOutWithThePendingJob() throws Exception {
+        RecommendationJobService service = memoryService();
+        JobResult job = service.createJob();
+        long start = System.nanoTime();
+
+        JobResult polled = service.awaitJob(job.getJobId(), Duration.ofMillis(200)).get(2, TimeUnit.SECONDS);
+
+        assertEquals(RecommendationJobStatus.PENDING, polled.getStatus());
+        assertTrue(elapsedMillis(start) >= 200);
+    }
+
+    @Test
+    void databaseModeRereadsTheQueueEveryRecheckInterval() throws Exception {
+        DatabaseRecommendationJobStore store = mock(DatabaseRecommendationJobStore.class);
+        AtomicReference<JobResult> row = new AtomicReference<>(restore(RecommendationJobStatus.PENDING));
+        when(store.find("job")).thenAnswer(invocation -> row.get());
+        RecommendationJobService service = service(store);
+        long start = System.nanoTime();
+
+        CompletableFuture<JobResult> poll = service.awaitJob("job", Duration.ofSeconds(5));
+        // Otro nodo termina el job enseguida, pero este solo lo ve en la siguiente relectura.
+        row.set(restore(RecommendationJobStatus.DONE));
+        JobResult completed = poll.get(3, TimeUnit.SECONDS);
+
+        assertEquals(RecommendationJobStatus.DONE, completed.getStatus());
+        long elapsed = elapsedMillis(start);
+        assertTrue(elapsed >= DATABASE_RECHECK.toMillis() && elapsed < 2 * DATABASE_RECHECK.toMillis(), "elapsed " + elapsed);
+        verify(store, times(2)).find("job");
+    }
+
+    @Test
+    void databaseModeTimesOutWithThePendingJob() throws Exception {
+        DatabaseRecommendationJobStore store = mock(DatabaseRecommendationJobStore.class);
+        when(store.find("job")).thenReturn(restore(RecommendationJobStatus.PENDING));
+        RecommendationJobService service = service(store);
+
+        JobResult polled = service.awaitJob("job", Duration.ofMillis(2_500)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(RecommendationJobStatus.PENDING, polled.getStatus());
+        // Lectura inicial y relecturas a 1 s, 2 s y 2,5 s (el resto hasta el limite).
+        verify(store, times(4)).find("job");
+    }
+
+    @Test
+    void controllerHoldsTheRequestUntilTheJobFinishes() throws Exception {
+        RecommendationJobService service = memoryService();
+        MockMvc mockMvc = mockMvc(service);
+        JobResult job = service.createJob();
+
+        MvcResult pending = mockMvc.perform(get("/api/recommendations/jobs/{jobId}", job.getJobId()).param("waitMs", "10000"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        aiCall.complete(RESULT);
+        pending.getAsyncResult(2_000);
+
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("DONE"))
+            .andExpect(jsonPath("$.recommendations[0].title").value("Arroz con huevo"));
+    }
+
+    @Test
+    void controllerAnswersPendingWhenTheWaitRunsOut() throws Exception {
+        RecommendationJobService service = memoryService();
+        MockMvc mockMvc = mockMvc(service);
+        JobResult job = service.createJob();
+
+        MvcResult pending = mockMvc.perform(get("/api/recommendations/jobs/{jobId}", job.getJobId()).param("waitMs", "200"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        pending.getAsyncResult(2_000);
+
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void controllerAnswersNotFoundForAnUnknownJob() throws Exception {
+        MockMvc mockMvc = mockMvc(memoryService());
+
+        MvcResult pending = mockMvc.perform(get("/api/recommendations/jobs/{jobId}", "desconocido").param("waitMs", "5000"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        pending.getAsyncResult(2_000);
+
+        mockMvc.perform(asyncDispatch(pending)).andExpect(status().isNotFound());
+    }
+
+    private RecommendationJobService memoryService() {
+        return service(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RecommendationJobService service(DatabaseRecommendationJobStore databaseStore) {
+        ObjectProvider<DatabaseRecommendationJobStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(databaseStore);
+        RecommendationJobStore jobStore = new RecommendationJobStore(
+            new SimpleMeterRegistry(), Duration.ofMinutes(15), Duration.ofMinutes(10), Duration.ofMinutes(2), 100, 1 << 20, Duration.ofHours(1)
+        );
+        RecommendationJobExecutor executor = new RecommendationJobExecutor(new SimpleMeterRegistry(), 8, 64, Duration.ofSeconds(5), true);
+        RecommendationRateLimiter limiter = new RecommendationRateLimiter(
+            false, 1, Duration.ofHours(1), 1, Duration.ofHours(1), 1, Duration.ofHours(1), Duration.ofMinutes(10), 100
+        );
+        return new RecommendationJobService(
+            recommendationService, currentUser, executor, jobStore, limiter, provider, Duration.ofSeconds(25), DATABASE_RECHECK
+        );
+    }
+
+    private MockMvc mockMvc(RecommendationJobService service) {
+        RecommendationController controller =
+            new RecommendationController(recommendationService, service, mock(RecommendationStreamService.class));
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private static JobResult restore(RecommendationJobStatus status) {
+        boolean done = status != RecommendationJobStatus.PENDING;
+        return JobResult.restore("job", status, Instant.now(), done ? Instant.now() : null, done ? RESULT : List.of(), null);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
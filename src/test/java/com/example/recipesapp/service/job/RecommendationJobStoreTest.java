@@ -0,0 +1,131 @@
+package com.example.recipesapp.service.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.ResourceExpiredException;
+import com.example.recipesapp.model.RecommendationJobStatus;
+import com.example.recipesapp.service.job.RecommendationJobService.JobResult;
+import com.example.recipesapp.service.recommendation.RecommendationSizeEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RecommendationJobStoreTest {
+
+    private static final Duration PENDING_TTL = Duration.ofMinutes(10);
+    private static final Duration DONE_TTL = Duration.ofMinutes(1);
+    private static final Duration ERROR_TTL = Duration.ofSeconds(10);
+    private static final List<RecommendationResponse> RECOMMENDATIONS = List.of(new RecommendationResponse(
+        null, "Arroz con huevo", "Rapido", "Cocinar el arroz y agregar el huevo.", 15, "EASY", null, 0.9, List.of(), List.of(), false
+    ));
+
+    private RecommendationJobStore store;
+
+    @AfterEach
+    void shutdown() {
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void eachStatusExpiresWithItsOwnTtl() {
+        store = store(100, Long.MAX_VALUE);
+        Instant now = Instant.now();
+        JobResult oldPending = finished("old-pending", RecommendationJobStatus.PENDING, now.minus(Duration.ofMinutes(5)), null);
+        JobResult recentDone = finished("recent-done", RecommendationJobStatus.DONE, now, now.minusSeconds(30));
+        JobResult staleDone = finished("stale-done", RecommendationJobStatus.DONE, now, now.minus(Duration.ofMinutes(2)));
+        JobResult staleError = finished("stale-error", RecommendationJobStatus.ERROR, now, now.minusSeconds(30));
+
+        store.sweepExpired();
+
+        // PENDING vive 10 min, DONE 1 min y ERROR 10 s: a los 30 s solo el error ya vencio.
+        assertEquals(2, store.size());
+        assertSame(oldPending, store.find("old-pending"));
+        assertSame(recentDone, store.find("recent-done"));
+        assertThrows(ResourceExpiredException.class, () -> store.find(staleDone.getJobId()));
+        assertThrows(ResourceExpiredException.class, () -> store.find(staleError.getJobId()));
+    }
+
+    @Test
+    void findExpiresAJobWithoutWaitingForTheSweep() {
+        store = store(100, Long.MAX_VALUE);
+        Instant now = Instant.now();
+        finished("stale-done", RecommendationJobStatus.DONE, now, now.minus(Duration.ofMinutes(2)));
+
+        assertThrows(ResourceExpiredException.class, () -> store.find("stale-done"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void unknownJobIsNotFoundRatherThanGone() {
+        store = store(100, Long.MAX_VALUE);
+
+        assertNull(store.find("never-existed"));
+    }
+
+    @Test
+    void overMaxEntriesEvictsTheOldestFinishedJob() {
+        store = store(2, Long.MAX_VALUE);
+        Instant now = Instant.now();
+        JobResult pending = new JobResult("pending");
+        store.add(pending);
+        finished("first-done", RecommendationJobStatus.DONE, now, now);
+        JobResult second = finished("second-done", RecommendationJobStatus.DONE, now, now);
+
+        // El pendiente nunca se desaloja: sale el terminado mas antiguo y deja una lapida (410).
+        assertEquals(2, store.size());
+        assertSame(pending, store.find("pending"));
+        assertSame(second, store.find("second-done"));
+        assertThrows(ResourceExpiredException.class, () -> store.find("first-done"));
+    }
+
+    @Test
+    void overMaxBytesEvictsTheOldestFinishedJob() {
+        long oneResult = RecommendationSizeEstimator.estimateBytes(RECOMMENDATIONS);
+        store = store(100, oneResult + oneResult / 2);
+        Instant now = Instant.now();
+        finished("first-done", RecommendationJobStatus.DONE, now, now);
+        JobResult second = finished("second-done", RecommendationJobStatus.DONE, now, now);
+
+        assertEquals(1, store.size());
+        assertSame(second, store.find("second-done"));
+        assertThrows(ResourceExpiredException.class, () -> store.find("first-done"));
+    }
+
+    @Test
+    void removedJobIsNotFoundRatherThanGone() {
+        store = store(100, Long.MAX_VALUE);
+        JobResult pending = new JobResult("rejected");
+        store.add(pending);
+
+        // remove es para jobs que no llegaron a admitirse: no deja lapida.
+        store.remove(pending);
+
+        assertNull(store.find("rejected"));
+    }
+
+    private RecommendationJobStore store(int maxEntries, long maxBytes) {
+        return new RecommendationJobStore(
+            new SimpleMeterRegistry(), PENDING_TTL, DONE_TTL, ERROR_TTL, maxEntries, maxBytes, Duration.ofMinutes(1)
+        );
+    }
+
+    private JobResult finished(String jobId, RecommendationJobStatus status, Instant createdAt, Instant completedAt) {
+        List<RecommendationResponse> recommendations = status == RecommendationJobStatus.DONE ? RECOMMENDATIONS : List.of();
+        String error = status == RecommendationJobStatus.ERROR ? "fallo" : null;
+        JobResult job = JobResult.restore(jobId, status, createdAt, completedAt, recommendations, error);
+        store.add(job);
+        if (status != RecommendationJobStatus.PENDING) {
+            store.completed(job);
+        }
+        return job;
+    }
+}
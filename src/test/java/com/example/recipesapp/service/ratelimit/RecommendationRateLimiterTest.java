@@ -0,0 +1,114 @@
+package com.example.recipesapp.service.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.exception.TooManyRequestsException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class RecommendationRateLimiterTest {
+
+    private static final Duration USER_REFILL = Duration.ofMinutes(10);
+    private static final Duration GLOBAL_REFILL = Duration.ofHours(2);
+    private static final Duration BACKGROUND_REFILL = Duration.ofHours(1);
+
+    @Test
+    void retryAfterRoundsTheWaitUpToWholeSeconds() {
+        assertEquals(1, retryAfterForUserRefill(Duration.ofMillis(100)), "menos de un segundo nunca es 0");
+        assertEquals(2, retryAfterForUserRefill(Duration.ofMillis(1500)));
+        assertEquals(3, retryAfterForUserRefill(Duration.ofSeconds(3)), "un segundo exacto no suma otro");
+    }
+
+    @Test
+    void userOverTheLimitGetsTheUserRetryAfter() {
+        RecommendationRateLimiter limiter = limiter(1, 50);
+        limiter.acquire(1L);
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> limiter.acquire(1L));
+
+        assertEquals(USER_REFILL.toSeconds(), ex.getRetryAfterSeconds());
+        // Otro usuario tiene su propio bucket.
+        assertDoesNotThrow(() -> limiter.acquire(2L));
+    }
+
+    @Test
+    void globalRejectionRefundsTheUserToken() {
+        RecommendationRateLimiter limiter = limiter(1, 1);
+        limiter.acquire(1L);
+
+        TooManyRequestsException first = assertThrows(TooManyRequestsException.class, () -> limiter.acquire(2L));
+        TooManyRequestsException second = assertThrows(TooManyRequestsException.class, () -> limiter.acquire(2L));
+
+        // Sin la devolucion, el segundo intento del usuario 2 chocaria con su propio limite (600 s).
+        assertEquals(GLOBAL_REFILL.toSeconds(), first.getRetryAfterSeconds());
+        assertEquals(GLOBAL_REFILL.toSeconds(), second.getRetryAfterSeconds());
+    }
+
+    @Test
+    void releaseReturnsTheUserAndGlobalTokens() {
+        RecommendationRateLimiter limiter = limiter(1, 1);
+        limiter.acquire(1L);
+
+        // La peticion no llego a admitirse: sin la devolucion ambos buckets seguirian vacios.
+        limiter.release(1L);
+
+        assertDoesNotThrow(() -> limiter.acquire(1L));
+    }
+
+    @Test
+    void backgroundWorkNeverSpendsTheUserBucket() {
+        RecommendationRateLimiter limiter = limiter(1, 50);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquireBackground());
+        }
+
+        // El precalculo agoto su presupuesto de sistema, pero el usuario conserva su unico token.
+        assertFalse(limiter.tryAcquireBackground());
+        assertDoesNotThrow(() -> limiter.acquire(1L));
+    }
+
+    @Test
+    void globalRejectionRefundsTheBackgroundToken() throws Exception {
+        RecommendationRateLimiter limiter = new RecommendationRateLimiter(
+            true, 1, USER_REFILL, 1, Duration.ofMillis(200), 1, BACKGROUND_REFILL, Duration.ofMinutes(10), 1_000
+        );
+        limiter.acquire(1L);
+
+        assertFalse(limiter.tryAcquireBackground());
+        Thread.sleep(250);
+
+        // El bucket de sistema tiene un solo token y tarda una hora en reponerlo: solo pasa si se devolvio.
+        assertTrue(limiter.tryAcquireBackground());
+    }
+
+    @Test
+    void disabledLimiterNeverRejects() {
+        RecommendationRateLimiter limiter = new RecommendationRateLimiter(
+            false, 1, USER_REFILL, 1, GLOBAL_REFILL, 1, BACKGROUND_REFILL, Duration.ofMinutes(10), 1_000
+        );
+
+        for (int i = 0; i < 5; i++) {
+            assertDoesNotThrow(() -> limiter.acquire(1L));
+            assertTrue(limiter.tryAcquireBackground());
+        }
+    }
+
+    private static long retryAfterForUserRefill(Duration userRefill) {
+        RecommendationRateLimiter limiter = new RecommendationRateLimiter(
+            true, 1, userRefill, 50, GLOBAL_REFILL, 5, BACKGROUND_REFILL, Duration.ofMinutes(10), 1_000
+        );
+        limiter.acquire(1L);
+        return assertThrows(TooManyRequestsException.class, () -> limiter.acquire(1L)).getRetryAfterSeconds();
+    }
+
+    private static RecommendationRateLimiter limiter(int userCapacity, int globalCapacity) {
+        return new RecommendationRateLimiter(
+            true, userCapacity, USER_REFILL, globalCapacity, GLOBAL_REFILL, 5, BACKGROUND_REFILL, Duration.ofMinutes(10), 1_000
+        );
+    }
+}
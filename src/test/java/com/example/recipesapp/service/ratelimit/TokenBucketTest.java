@@ -0,0 +1,71 @@
+package com.example.recipesapp.service.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void grantsTheWholeBurstThenReportsTheWaitForTheNextToken() {
+        TokenBucket bucket = new TokenBucket(3, Duration.ofHours(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(), "token " + i + " de la rafaga");
+        }
+        long wait = bucket.tryAcquire();
+
+        // El siguiente token llega un refill-interval despues del primero consumido.
+        assertTrue(wait > TimeUnit.MINUTES.toNanos(59) && wait <= TimeUnit.HOURS.toNanos(1), "wait=" + wait);
+    }
+
+    @Test
+    void rejectedAttemptsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(1, Duration.ofHours(1));
+        bucket.tryAcquire();
+
+        long first = bucket.tryAcquire();
+        long second = bucket.tryAcquire();
+
+        assertTrue(second <= first && first - second < TimeUnit.SECONDS.toNanos(1), "first=" + first + " second=" + second);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, Duration.ofMillis(50));
+        assertEquals(0, bucket.tryAcquire());
+
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(50), "wait=" + wait);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateMoreThanTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofMillis(10));
+
+        Thread.sleep(100);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void refundReturnsTheConsumedToken() {
+        TokenBucket bucket = new TokenBucket(1, Duration.ofHours(1));
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+
+        bucket.refund();
+
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+}
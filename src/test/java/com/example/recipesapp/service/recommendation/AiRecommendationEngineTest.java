@@ -0,0 +1,122 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.service.ai.AiClient;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AiRecommendationEngineTest {
+
+    private static final PantrySnapshot PANTRY = new PantrySnapshot(
+        1L, List.of(new PantryEntry(1L, "arroz", 500.0, "g", null)), "arroz"
+    );
+
+    private ScriptedAiClient aiClient;
+    private RecommendationMetrics metrics;
+    private RecommendationResponseParser parser;
+
+    @BeforeEach
+    void setUp() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        when(recipeRepository.findExistingIds(anyCollection())).thenReturn(List.of(10L));
+        metrics = new RecommendationMetrics(new SimpleMeterRegistry());
+        parser = new RecommendationResponseParser(new RecipeIdValidator(recipeRepository, Duration.ofMinutes(5), 100), metrics);
+        aiClient = new ScriptedAiClient();
+    }
+
+    @Test
+    void fanOutDedupsAndAnswersAtQuorumCancellingThePendingRequests() throws Exception {
+        CompletableFuture<List<RecommendationResponse>> result = engine(6, 3).recommendAsync(PANTRY);
+        List<CompletableFuture<String>> calls = aiClient.calls;
+        assertEquals(6, calls.size());
+
+        // Dos duplicados por titulo normalizado y dos por recipeId: solo aportan dos recetas.
+        calls.get(0).complete("[{\"title\": \"Arroz con huevo\"}]");
+        calls.get(1).complete("[{\"title\": \"ARROZ con huevos\"}]");
+        calls.get(2).complete("[{\"recipeId\": 10, \"title\": \"Tortilla\"}]");
+        calls.get(3).complete("[{\"recipeId\": 10, \"title\": \"Tortilla de patatas\"}]");
+        calls.get(4).complete("[{\"title\": \"Sopa de verduras\"}]");
+
+        List<RecommendationResponse> merged = result.get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, merged.size());
+        assertEquals(1, merged.stream().filter(r -> "arroz con huevo".equals(RecommendationPromptBuilder.normalizeName(r.title()))).count());
+        assertEquals(1, merged.stream().filter(r -> Long.valueOf(10L).equals(r.recipeId())).count());
+        assertTrue(merged.stream().anyMatch(r -> r.title().equals("Sopa de verduras")));
+        // Se cancela la peticion al AiClient, no solo la etapa de parseo derivada.
+        awaitCancelled(calls.get(5));
+    }
+
+    @Test
+    void fanOutBelowQuorumReturnsWhatArrivedOnceEveryCallFinished() throws Exception {
+        CompletableFuture<List<RecommendationResponse>> result = engine(3, 3).recommendAsync(PANTRY);
+        List<CompletableFuture<String>> calls = aiClient.calls;
+
+        calls.get(0).completeExceptionally(new AiServiceException("503"));
+        calls.get(1).complete("[{\"title\": \"Arroz con huevo\"}]");
+        calls.get(2).complete("[{\"title\": \"arroz con huevo\"}]");
+
+        List<RecommendationResponse> merged = result.get(5, TimeUnit.SECONDS);
+        assertEquals(1, merged.size());
+    }
+
+    @Test
+    void fanOutFailsWithTheProviderErrorWhenEveryCallFails() {
+        CompletableFuture<List<RecommendationResponse>> result = engine(2, 2).recommendAsync(PANTRY);
+        AiServiceException failure = new AiServiceException("503");
+
+        aiClient.calls.get(0).completeExceptionally(new AiServiceException("429"));
+        aiClient.calls.get(1).completeExceptionally(failure);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertSame(failure, ex.getCause());
+    }
+
+    private AiRecommendationEngine engine(int calls, int quorum) {
+        RecommendationPromptBuilder promptBuilder = new RecommendationPromptBuilder(metrics, 1000, "verdura");
+        return new AiRecommendationEngine(mock(LocalRecipeMatcher.class), promptBuilder, parser, aiClient, metrics, true, calls, quorum);
+    }
+
+    private static void awaitCancelled(CompletableFuture<String> call) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!call.isCancelled() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(call.isCancelled(), "la llamada pendiente sigue en curso");
+    }
+
+    private static final class ScriptedAiClient implements AiClient {
+
+        private final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String generateContent(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<String> generateContentAsync(String prompt) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }
+    }
+}
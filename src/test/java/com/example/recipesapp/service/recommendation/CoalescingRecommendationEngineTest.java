@@ -0,0 +1,194 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class CoalescingRecommendationEngineTest {
+
+    private static final int CALLERS = 8;
+    private static final List<RecommendationResponse> RESULT = List.of(
+        new RecommendationResponse(null, "Arroz con huevo", null, null, null, null, null, 1.0, List.of(), List.of())
+    );
+
+    @Test
+    void concurrentCallsForTheSamePantryRunTheDelegateOnce() throws Exception {
+        BlockingEngine delegate = new BlockingEngine();
+        CoalescingRecommendationEngine engine = new CoalescingRecommendationEngine(delegate);
+
+        List<FutureTask<List<RecommendationResponse>>> callers =
+            startConcurrently(() -> engine.recommend(pantry(1L, "arroz")), delegate.started);
+        delegate.release.countDown();
+
+        for (FutureTask<List<RecommendationResponse>> caller : callers) {
+            assertSame(RESULT, caller.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, delegate.calls.get());
+
+        // La entrada en curso se elimino al terminar: la siguiente peticion vuelve a ejecutar.
+        engine.recommend(pantry(1L, "arroz"));
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    void delegateFailureReachesEveryCaller() throws Exception {
+        BlockingEngine delegate = new BlockingEngine();
+        delegate.failure = new AiServiceException("503");
+        CoalescingRecommendationEngine engine = new CoalescingRecommendationEngine(delegate);
+
+        List<FutureTask<List<RecommendationResponse>>> callers =
+            startConcurrently(() -> engine.recommend(pantry(1L, "arroz")), delegate.started);
+        delegate.release.countDown();
+
+        for (FutureTask<List<RecommendationResponse>> caller : callers) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertSame(delegate.failure, ex.getCause());
+        }
+        assertEquals(1, delegate.calls.get());
+
+        delegate.failure = null;
+        assertSame(RESULT, engine.recommend(pantry(1L, "arroz")));
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    void differentUsersOrPantriesAreNotCoalesced() {
+        BlockingEngine delegate = new BlockingEngine();
+        delegate.release.countDown();
+        CoalescingRecommendationEngine engine = new CoalescingRecommendationEngine(delegate);
+
+        engine.recommend(pantry(1L, "arroz"));
+        engine.recommend(pantry(2L, "arroz"));
+        engine.recommend(pantry(1L, "lentejas"));
+
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    void asyncCallersShareTheCallButNotTheFuture() throws Exception {
+        BlockingEngine delegate = new BlockingEngine();
+        CoalescingRecommendationEngine engine = new CoalescingRecommendationEngine(delegate);
+
+        CompletableFuture<List<RecommendationResponse>> first = engine.recommendAsync(pantry(1L, "arroz"));
+        CompletableFuture<List<RecommendationResponse>> second = engine.recommendAsync(pantry(1L, "arroz"));
+        // Cancelar la copia de un llamador no cancela la llamada compartida.
+        first.cancel(true);
+        delegate.release.countDown();
+
+        assertSame(RESULT, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    void streamJoiningARequestInFlightReceivesTheWholeList() throws Exception {
+        BlockingEngine delegate = new BlockingEngine();
+        CoalescingRecommendationEngine engine = new CoalescingRecommendationEngine(delegate);
+        List<RecommendationResponse> streamed = new CopyOnWriteArrayList<>();
+
+        FutureTask<List<RecommendationResponse>> request = new FutureTask<>(() -> engine.recommend(pantry(1L, "arroz")));
+        Thread.ofPlatform().start(request);
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        FutureTask<List<RecommendationResponse>> stream =
+            new FutureTask<>(() -> engine.recommendStreaming(pantry(1L, "arroz"), streamed::add));
+        awaitParked(List.of(Thread.ofPlatform().start(stream)));
+        delegate.release.countDown();
+
+        assertSame(RESULT, stream.get(5, TimeUnit.SECONDS));
+        assertEquals(RESULT, streamed);
+        assertEquals(1, delegate.calls.get());
+        assertFalse(delegate.streamed);
+    }
+
+    /**
+     * Arranca CALLERS llamadas: la primera queda dentro del delegado y el resto esperando su resultado.
+     */
+    private static <T> List<FutureTask<T>> startConcurrently(Callable<T> call, CountDownLatch leaderStarted)
+        throws InterruptedException {
+        List<FutureTask<T>> callers = new ArrayList<>();
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            FutureTask<T> caller = new FutureTask<>(call);
+            Thread thread = Thread.ofPlatform().name("caller-" + i).start(caller);
+            callers.add(caller);
+            if (i == 0) {
+                assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+            } else {
+                followers.add(thread);
+            }
+        }
+        awaitParked(followers);
+        return callers;
+    }
+
+    private static void awaitParked(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, thread.getName() + " no llego a esperar el resultado");
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private static PantrySnapshot pantry(Long userId, String fingerprint) {
+        return new PantrySnapshot(userId, List.of(), fingerprint);
+    }
+
+    /**
+     * Delegado que cuenta las llamadas y no responde hasta que se libera release.
+     */
+    private static final class BlockingEngine implements RecommendationEngine {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile AiServiceException failure;
+        private volatile boolean streamed;
+
+        @Override
+        public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return RESULT;
+        }
+
+        @Override
+        public CompletableFuture<List<RecommendationResponse>> recommendAsync(PantrySnapshot pantry) {
+            return CompletableFuture.supplyAsync(() -> recommend(pantry));
+        }
+
+        @Override
+        public List<RecommendationResponse> recommendStreaming(
+            PantrySnapshot pantry,
+            Consumer<RecommendationResponse> onRecommendation
+        ) {
+            streamed = true;
+            return RecommendationEngine.super.recommendStreaming(pantry, onRecommendation);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonArrayStreamSplitterTest {
+
+    @Test
+    void objectsSplitAcrossChunksAreEmittedWhenTheyClose() {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+
+        assertEquals(List.of(), splitter.feed("[{\"title\":\"Ar"));
+        assertEquals(List.of("{\"title\":\"Arroz\"}"), splitter.feed("roz\"},{\"title\""));
+        assertEquals(List.of("{\"title\":\"Tortilla\"}"), splitter.feed(":\"Tortilla\"}]"));
+        assertTrue(splitter.isFinished());
+    }
+
+    @Test
+    void feedingOneCharacterAtATimeGivesTheSameObjects() {
+        String json = "[{\"a\":{\"b\":[1,2]}}, {\"c\":\"}\"}]";
+
+        assertEquals(List.of("{\"a\":{\"b\":[1,2]}}", "{\"c\":\"}\"}"), feedByCharacter(json));
+    }
+
+    @Test
+    void bracesAndBracketsInsideStringsDoNotChangeTheDepth() {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+
+        List<String> objects = splitter.feed("[{\"instructions\":\"mezclar { y } luego ] y [\"},{\"n\":2}]");
+
+        assertEquals(List.of("{\"instructions\":\"mezclar { y } luego ] y [\"}", "{\"n\":2}"), objects);
+    }
+
+    @Test
+    void escapedQuotesAndBackslashesAreHandledEvenWhenSplit() {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+
+        // La barra queda al final de un fragmento y la comilla escapada al inicio del siguiente.
+        assertEquals(List.of(), splitter.feed("[{\"t\":\"dice \\"));
+        assertEquals(List.of(), splitter.feed("\"hola}\\\" ok"));
+        // "\\\\" es una barra literal: la comilla que sigue si cierra el string.
+        assertEquals(List.of("{\"t\":\"dice \\\"hola}\\\" ok\",\"r\":\"c:\\\\\"}"), splitter.feed("\",\"r\":\"c:\\\\\"}]"));
+    }
+
+    @Test
+    void truncatedTailKeepsTheCompleteObjects() {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+
+        List<String> objects = splitter.feed("[{\"title\":\"Arroz\"},{\"title\":\"Torti");
+
+        assertEquals(List.of("{\"title\":\"Arroz\"}"), objects);
+        assertFalse(splitter.isFinished());
+    }
+
+    @Test
+    void ignoresTextAroundTheArray() {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+
+        List<String> objects = splitter.feed("```json\n[ {\"n\":1} ]\n```\n[{\"n\":2}]");
+
+        assertEquals(List.of("{\"n\":1}"), objects);
+        assertTrue(splitter.isFinished());
+        assertEquals(List.of(), splitter.feed("{\"n\":3}"));
+    }
+
+    private static List<String> feedByCharacter(String json) {
+        JsonArrayStreamSplitter splitter = new JsonArrayStreamSplitter();
+        List<String> objects = new ArrayList<>();
+        for (char c : json.toCharArray()) {
+            objects.addAll(splitter.feed(String.valueOf(c)));
+        }
+        return objects;
+    }
+}
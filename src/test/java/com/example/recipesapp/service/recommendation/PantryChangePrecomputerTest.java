@@ -0,0 +1,115 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.recipesapp.service.RecommendationService;
+import com.example.recipesapp.service.event.PantryChangedEvent;
+import com.example.recipesapp.service.job.RecommendationJobExecutor;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PantryChangePrecomputerTest {
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(300);
+
+    private RecommendationService recommendationService;
+    private RecommendationJobExecutor executor;
+    private PantryChangePrecomputer precomputer;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = mock(RecommendationService.class);
+        // Despensa vacia: el precalculo termina sin llamar al motor, y cada ejecucion es una lectura.
+        when(recommendationService.loadPantrySnapshot(anyLong()))
+            .thenAnswer(invocation -> PantrySnapshot.of((Long) invocation.getArgument(0), List.of()));
+        executor = new RecommendationJobExecutor(new SimpleMeterRegistry(), 2, 4, Duration.ofSeconds(1), true);
+        precomputer = precomputer(limiter(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        precomputer.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    void burstOfChangesProducesOnePrecomputeAfterTheDebounce() {
+        for (int i = 0; i < 5; i++) {
+            precomputer.onPantryChanged(new PantryChangedEvent(1L));
+        }
+
+        assertEquals(1, precomputer.pendingCount());
+        verify(recommendationService, after(DEBOUNCE.toMillis() / 2).never()).loadPantrySnapshot(1L);
+        verify(recommendationService, timeout(2_000).times(1)).loadPantrySnapshot(1L);
+        verify(recommendationService, after(DEBOUNCE.toMillis() * 2).times(1)).loadPantrySnapshot(1L);
+        assertEquals(0, precomputer.pendingCount());
+    }
+
+    @Test
+    void eachEditRestartsTheDebounce() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            precomputer.onPantryChanged(new PantryChangedEvent(1L));
+            Thread.sleep(DEBOUNCE.toMillis() / 3);
+        }
+
+        // Ninguna pausa llego al debounce: todavia no se precalculo nada.
+        verify(recommendationService, never()).loadPantrySnapshot(1L);
+        verify(recommendationService, timeout(2_000).times(1)).loadPantrySnapshot(1L);
+    }
+
+    @Test
+    void usersAreDebouncedIndependently() {
+        precomputer.onPantryChanged(new PantryChangedEvent(1L));
+        precomputer.onPantryChanged(new PantryChangedEvent(2L));
+        precomputer.onPantryChanged(new PantryChangedEvent(1L));
+
+        assertEquals(2, precomputer.pendingCount());
+        verify(recommendationService, timeout(2_000).times(1)).loadPantrySnapshot(1L);
+        verify(recommendationService, timeout(2_000).times(1)).loadPantrySnapshot(2L);
+    }
+
+    @Test
+    void skipsSilentlyWhenThePrecomputeBudgetIsExhausted() {
+        precomputer.shutdown();
+        precomputer = precomputer(limiter(1));
+
+        precomputer.onPantryChanged(new PantryChangedEvent(1L));
+        verify(recommendationService, timeout(2_000).times(1)).loadPantrySnapshot(1L);
+
+        // El unico token ya se gasto: el siguiente precalculo se omite sin error.
+        precomputer.onPantryChanged(new PantryChangedEvent(1L));
+        verify(recommendationService, after(DEBOUNCE.toMillis() * 3).times(1)).loadPantrySnapshot(1L);
+        assertEquals(0, precomputer.pendingCount());
+    }
+
+    private PantryChangePrecomputer precomputer(RecommendationRateLimiter limiter) {
+        return new PantryChangePrecomputer(recommendationService, executor, limiter, true, DEBOUNCE);
+    }
+
+    private static RecommendationRateLimiter limiter(int backgroundCapacity) {
+        return new RecommendationRateLimiter(
+            true,
+            5,
+            Duration.ofMinutes(10),
+            50,
+            Duration.ofMillis(200),
+            backgroundCapacity,
+            Duration.ofMinutes(10),
+            Duration.ofMinutes(10),
+            1_000
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PantryFingerprintTest {
+
+    @Test
+    void unitAliasesCollapseToTheCanonicalUnit() {
+        assertEquals("g", PantryFingerprint.normalizeUnit(" Gramos. "));
+        assertEquals("g", PantryFingerprint.normalizeUnit("GRS"));
+        assertEquals("kg", PantryFingerprint.normalizeUnit("Kilos"));
+        assertEquals("l", PantryFingerprint.normalizeUnit("lts."));
+        assertEquals("ml", PantryFingerprint.normalizeUnit("mililitros"));
+        assertEquals("unidad", PantryFingerprint.normalizeUnit("uds"));
+        assertEquals("taza", PantryFingerprint.normalizeUnit("Taza"));
+        assertEquals("", PantryFingerprint.normalizeUnit(null));
+
+        assertEquals(fingerprint(entry(1L, 200.0, "g")), fingerprint(entry(1L, 200.0, "gramos")));
+    }
+
+    @Test
+    void kilogramsAndLitersNormalizeToGramsAndMilliliters() {
+        assertEquals(1500.0, PantryFingerprint.toBaseQuantity(1.5, "kg"));
+        assertEquals(250.0, PantryFingerprint.toBaseQuantity(0.25, "l"));
+        assertEquals(3.0, PantryFingerprint.toBaseQuantity(3.0, "unidad"));
+        assertEquals(0.0, PantryFingerprint.toBaseQuantity(null, "g"));
+        assertEquals("g", PantryFingerprint.baseUnit("kg"));
+        assertEquals("ml", PantryFingerprint.baseUnit("l"));
+
+        assertEquals(fingerprint(entry(1L, 1.0, "kg")), fingerprint(entry(1L, 1000.0, "g")));
+        assertEquals(fingerprint(entry(2L, 1.5, "litros")), fingerprint(entry(2L, 1500.0, "ml")));
+        assertNotEquals(fingerprint(entry(1L, 500.0, "g")), fingerprint(entry(1L, 500.0, "ml")));
+    }
+
+    @Test
+    void quantitiesInTheSamePowerOfTwoBucketShareTheFingerprint() {
+        // 64..127 g cae en el mismo grupo; 128 g ya es el siguiente.
+        assertEquals(fingerprint(entry(1L, 64.0, "g")), fingerprint(entry(1L, 127.0, "g")));
+        assertEquals(fingerprint(entry(1L, 100.0, "g")), fingerprint(entry(1L, 0.1, "kg")));
+        assertNotEquals(fingerprint(entry(1L, 127.0, "g")), fingerprint(entry(1L, 128.0, "g")));
+        assertNotEquals(fingerprint(entry(1L, 63.0, "g")), fingerprint(entry(1L, 64.0, "g")));
+
+        // Sin cantidad es lo mismo que cero, pero distinto de cualquier cantidad positiva.
+        assertEquals(fingerprint(entry(1L, null, "g")), fingerprint(entry(1L, 0.0, "g")));
+        assertNotEquals(fingerprint(entry(1L, 0.0, "g")), fingerprint(entry(1L, 0.5, "g")));
+    }
+
+    @Test
+    void entryOrderDoesNotChangeTheFingerprint() {
+        PantryEntry arroz = entry(1L, 500.0, "g");
+        PantryEntry leche = entry(2L, 1.0, "l");
+        PantryEntry huevos = entry(3L, 6.0, "unidades");
+
+        assertEquals(fingerprint(arroz, leche, huevos), fingerprint(huevos, arroz, leche));
+        assertNotEquals(fingerprint(arroz, leche), fingerprint(arroz, leche, huevos));
+    }
+
+    private static String fingerprint(PantryEntry... entries) {
+        return PantryFingerprint.of(List.of(entries));
+    }
+
+    private static PantryEntry entry(Long ingredientId, Double quantity, String unit) {
+        return new PantryEntry(ingredientId, "ingrediente " + ingredientId, quantity, unit, null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.service.recommendation.RecipeMatchIndex.RecipeMatch;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class RecipeMatchIndexTest {
+
+    private static final long ARROZ = 1L;
+    private static final long HUEVO = 2L;
+    private static final long CEBOLLA = 3L;
+    private static final long TOMATE = 4L;
+    private static final long AJO = 5L;
+
+    @Test
+    void scoreIsTheFractionOfRecipeIngredientsInThePantry() {
+        RecipeMatchIndex index = index(Map.of(
+            10L, Set.of(ARROZ, HUEVO),
+            20L, Set.of(ARROZ, CEBOLLA, TOMATE, AJO),
+            30L, Set.of(TOMATE)
+        ));
+
+        List<RecipeMatch> matches = index.match(Set.of(ARROZ, HUEVO, CEBOLLA), 0.0, 10);
+
+        // La receta 30 no comparte ingredientes con la despensa y no aparece.
+        assertEquals(List.of(new RecipeMatch(10L, 2, 2), new RecipeMatch(20L, 2, 4)), matches);
+        assertEquals(1.0, matches.get(0).score());
+        assertEquals(0.5, matches.get(1).score());
+    }
+
+    @Test
+    void ranksByScoreThenMatchedIngredientsThenRecipeId() {
+        RecipeMatchIndex index = index(Map.of(
+            40L, Set.of(ARROZ),
+            30L, Set.of(ARROZ, HUEVO),
+            20L, Set.of(ARROZ, HUEVO, CEBOLLA, TOMATE),
+            10L, Set.of(ARROZ, HUEVO, AJO)
+        ));
+
+        List<RecipeMatch> matches = index.match(Set.of(ARROZ, HUEVO), 0.0, 10);
+
+        // 30 y 40 empatan en 1.0 y gana la que usa mas ingredientes; 10 (2/3) va antes que 20 (2/4).
+        assertEquals(List.of(30L, 40L, 10L, 20L), matches.stream().map(RecipeMatch::recipeId).toList());
+    }
+
+    @Test
+    void appliesMinScoreAndLimit() {
+        RecipeMatchIndex index = index(Map.of(
+            10L, Set.of(ARROZ),
+            20L, Set.of(ARROZ, HUEVO),
+            30L, Set.of(ARROZ, HUEVO, CEBOLLA),
+            40L, Set.of(ARROZ, HUEVO, CEBOLLA, TOMATE)
+        ));
+
+        List<RecipeMatch> aboveMin = index.match(Set.of(ARROZ, HUEVO), 0.6, 10);
+        List<RecipeMatch> best = index.match(Set.of(ARROZ, HUEVO), 0.0, 1);
+
+        assertEquals(List.of(20L, 10L, 30L), aboveMin.stream().map(RecipeMatch::recipeId).toList());
+        assertEquals(List.of(20L), best.stream().map(RecipeMatch::recipeId).toList());
+    }
+
+    @Test
+    void putReplacesAndRemoveDropsARecipe() {
+        RecipeMatchIndex index = index(Map.of(10L, Set.of(ARROZ, HUEVO), 20L, Set.of(TOMATE)));
+
+        index.put(10L, Set.of(CEBOLLA));
+        index.remove(20L);
+
+        assertTrue(index.match(Set.of(ARROZ, HUEVO, TOMATE), 0.0, 10).isEmpty());
+        assertEquals(List.of(new RecipeMatch(10L, 1, 1)), index.match(Set.of(CEBOLLA), 0.0, 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void readersNeverSeeAHalfLoadedIndexDuringReplaceAll() throws Exception {
+        Map<Long, Set<Long>> catalog = new HashMap<>();
+        for (long recipeId = 1; recipeId <= 2_000; recipeId++) {
+            catalog.put(recipeId, Set.of(ARROZ, 100 + recipeId));
+        }
+        RecipeMatchIndex index = index(catalog);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        index.replaceAll(catalog);
+                    }
+                } finally {
+                    running.set(false);
+                }
+            });
+            List<Future<Integer>> readers = List.of(executor.submit(() -> read(index, running)), executor.submit(() -> read(index, running)));
+
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertEquals(0, reader.get(30, TimeUnit.SECONDS), "lecturas que vieron el indice incompleto");
+            }
+        }
+    }
+
+    private static int read(RecipeMatchIndex index, AtomicBoolean running) {
+        int incomplete = 0;
+        while (running.get()) {
+            if (index.match(Set.of(ARROZ), 0.0, Integer.MAX_VALUE).size() != 2_000) {
+                incomplete++;
+            }
+        }
+        return incomplete;
+    }
+
+    private static RecipeMatchIndex index(Map<Long, Set<Long>> ingredientsPerRecipe) {
+        RecipeMatchIndex index = new RecipeMatchIndex();
+        index.replaceAll(ingredientsPerRecipe);
+        return index;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RecommendationPromptBuilderTest {
+
+    private static final String LIST_START = "despensa: ";
+    private static final String LIST_END = ". Debes devolver";
+
+    @Test
+    void mergesNearDuplicatesByNormalizedNameAndBaseUnit() {
+        List<String> items = ingredients(builder(1000).build(List.of(
+            entry("Tomates", 2.0, "unidades", null),
+            entry("tomate", 3.0, "ud", null),
+            entry("Arroz", 500.0, "g", null),
+            entry("arroz ", 1.0, "kg", null),
+            entry("Leche", 1.0, "l", null),
+            entry("Leche", 2.0, "unidad", null),
+            entry("Azúcar", null, null, null),
+            entry("azucar", null, null, null)
+        )));
+
+        // Misma unidad base se suma; leche en litros y en unidades sigue separada. Entre unidades
+        // distintas decide el nombre; dentro de "unidad", 5 tomates van antes que 2 leches.
+        assertEquals(List.of("Arroz (1500 g)", "Azúcar", "Leche (1000 ml)", "Tomates (5 unidad)", "Leche (2 unidad)"), items);
+    }
+
+    @Test
+    void perishablesComeFirst() {
+        List<String> items = ingredients(builder(1000).build(List.of(
+            entry("arroz", 5.0, "kg", "Cereales"),
+            entry("pollo", 200.0, "g", "Carnes"),
+            entry("lentejas", 1.0, "kg", "Legumbres"),
+            entry("espinaca", 1.0, "unidad", "Verduras")
+        )));
+
+        // 1 unidad de espinaca no se compara con 200 g de pollo: empatan y decide el nombre.
+        assertEquals(List.of("espinaca (1 unidad)", "pollo (200 g)", "arroz (5000 g)", "lentejas (1000 g)"), items);
+    }
+
+    @Test
+    void quantitiesAreOnlyComparedWithinTheSameUnit() {
+        List<String> items = ingredients(builder(1000).build(List.of(
+            entry("sal", 400.0, "g", null),
+            entry("harina", 500.0, "g", null),
+            entry("huevos", 12.0, "unidades", null),
+            entry("azucar", 2.0, "kg", null),
+            entry("limones", 3.0, "unidades", null)
+        )));
+
+        // 2 kg va antes que 500 g, pero 400 g no desplaza a 12 unidades: se intercalan por puesto.
+        assertEquals(List.of("azucar (2000 g)", "huevos (12 unidad)", "harina (500 g)", "limones (3 unidad)", "sal (400 g)"), items);
+    }
+
+    @Test
+    void oversizedPantryStaysUnderTheTokenBudgetKeepingThePriorityItems() {
+        List<PantryEntry> pantry = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            pantry.add(entry("ingrediente " + i, (double) i, "g", "Despensa"));
+        }
+        pantry.add(entry("merluza", 1.0, "g", "Pescados"));
+
+        String prompt = builder(600).build(pantry);
+        List<String> items = ingredients(prompt);
+
+        assertTrue(RecommendationPromptBuilder.estimateTokens(prompt) <= 600, "el prompt excede max-tokens");
+        assertTrue(items.size() < 501);
+        assertEquals("merluza (1 g)", items.get(0));
+        assertEquals("ingrediente 500 (500 g)", items.get(1));
+        // Entran las cantidades mayores, en orden, y se omiten las menores.
+        List<String> expectedTail = new ArrayList<>();
+        for (int i = 0; i < items.size() - 1; i++) {
+            expectedTail.add("ingrediente " + (500 - i) + " (" + (500 - i) + " g)");
+        }
+        assertEquals(expectedTail, items.subList(1, items.size()));
+        assertFalse(items.contains("ingrediente 1 (1 g)"));
+    }
+
+    @Test
+    void singleRecipePromptAlsoRespectsTheBudget() {
+        List<PantryEntry> pantry = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            pantry.add(entry("ingrediente " + i, (double) i, "g", null));
+        }
+
+        String prompt = builder(600).buildSingle(pantry, 1, 4);
+
+        assertTrue(RecommendationPromptBuilder.estimateTokens(prompt) <= 600);
+        assertTrue(prompt.contains("propuesta 2 de 4"));
+    }
+
+    @Test
+    void emptyPantryStillProducesAPrompt() {
+        assertEquals(List.of("ningun ingrediente"), ingredients(builder(1000).build(List.of())));
+    }
+
+    private static RecommendationPromptBuilder builder(int maxTokens) {
+        return new RecommendationPromptBuilder(
+            new RecommendationMetrics(new SimpleMeterRegistry()), maxTokens, "verdura,carne,pescado"
+        );
+    }
+
+    private static List<String> ingredients(String prompt) {
+        int start = prompt.indexOf(LIST_START) + LIST_START.length();
+        return Arrays.asList(prompt.substring(start, prompt.indexOf(LIST_END, start)).split(", "));
+    }
+
+    private static PantryEntry entry(String name, Double quantity, String unit, String category) {
+        return new PantryEntry(null, name, quantity, unit, category);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.recipesapp.dto.RecommendationIngredientDto;
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.AiServiceException;
+import com.example.recipesapp.repository.RecipeRepository;
+import com.example.recipesapp.service.event.RecipeCatalogChangedEvent;
+import com.example.recipesapp.service.metrics.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecommendationResponseParserTest {
+
+    private RecipeRepository recipeRepository;
+    private RecipeIdValidator recipeIdValidator;
+    private SimpleMeterRegistry registry;
+    private RecommendationResponseParser parser;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        when(recipeRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id == 10L || id == 20L).toList();
+        });
+        recipeIdValidator = new RecipeIdValidator(recipeRepository, Duration.ofMinutes(5), 100);
+        registry = new SimpleMeterRegistry();
+        parser = new RecommendationResponseParser(recipeIdValidator, new RecommendationMetrics(registry));
+    }
+
+    @Test
+    void readsTheFieldsAndNormalizesTheScore() {
+        List<RecommendationResponse> recommendations = parser.parse("""
+            [{"recipeId": 10, "title": "Arroz con huevo", "prepTimeMinutes": "20", "matchScore": 85,
+              "missingIngredients": ["sal", " ", "ajo "],
+              "ingredients": [{"name": "arroz", "quantity": 200, "unit": "g"}, {"name": ""}, "huevo"],
+              "extra": {"ignorado": [1, 2]}}]
+            """);
+
+        RecommendationResponse recommendation = recommendations.get(0);
+        assertEquals(10L, recommendation.recipeId());
+        assertEquals("Arroz con huevo", recommendation.title());
+        assertEquals(20, recommendation.prepTimeMinutes());
+        assertEquals(0.85, recommendation.matchScore());
+        assertEquals(List.of("sal", "ajo"), recommendation.missingIngredients());
+        assertEquals(List.of(new RecommendationIngredientDto("arroz", 200.0, "g")), recommendation.ingredients());
+    }
+
+    @Test
+    void truncatedArrayKeepsTheCompleteObjects() {
+        List<RecommendationResponse> recommendations = parser.parse(
+            "[{\"title\": \"Arroz\"}, {\"title\": \"Tortilla\"}, {\"title\": \"Sopa\", \"descrip"
+        );
+
+        assertEquals(List.of("Arroz", "Tortilla"), titles(recommendations));
+        assertEquals(0.0, registry.get("recommendation.parse.failures").counter().count());
+    }
+
+    @Test
+    void truncatedBeforeTheFirstObjectFails() {
+        assertThrows(AiServiceException.class, () -> parser.parse("[{\"title\": \"Arr"));
+        assertThrows(AiServiceException.class, () -> parser.parse("["));
+        assertEquals(2.0, registry.get("recommendation.parse.failures").counter().count());
+    }
+
+    @Test
+    void skipsMarkdownCodeFences() {
+        List<RecommendationResponse> recommendations = parser.parse("""
+            Aqui tienes:
+            ```json
+            [{"title": "Arroz"}, {"title": "Tortilla"}]
+            ```
+            """);
+
+        assertEquals(List.of("Arroz", "Tortilla"), titles(recommendations));
+    }
+
+    @Test
+    void emptyOrNonJsonResponseFails() {
+        assertThrows(AiServiceException.class, () -> parser.parse(""));
+        assertThrows(AiServiceException.class, () -> parser.parse("   "));
+        assertThrows(AiServiceException.class, () -> parser.parse(null));
+        assertThrows(AiServiceException.class, () -> parser.parse("No puedo ayudarte con eso."));
+        assertEquals(List.of(), parser.parse("[]"));
+    }
+
+    @Test
+    void unknownRecipeIdsAreClearedWithOneBatchQuery() {
+        List<RecommendationResponse> recommendations = parser.parse("""
+            [{"recipeId": 10, "title": "A"}, {"recipeId": 99, "title": "B"},
+             {"recipeId": 20, "title": "C"}, {"recipeId": -3, "title": "D"}, {"title": "E"}]
+            """);
+
+        assertEquals(List.of("A", "B", "C", "D", "E"), titles(recommendations));
+        assertEquals(
+            Arrays.asList(10L, null, 20L, null, null),
+            recommendations.stream().map(RecommendationResponse::recipeId).toList()
+        );
+        verify(recipeRepository, times(1)).findExistingIds(anyCollection());
+    }
+
+    @Test
+    void deletedRecipeIdIsClearedOnTheNextParse() {
+        assertEquals(10L, parser.parse("[{\"recipeId\": 10}]").get(0).recipeId());
+        // Conocido: la segunda respuesta sale de la cache del validador sin volver a consultar.
+        assertEquals(10L, parser.parse("[{\"recipeId\": 10}]").get(0).recipeId());
+        verify(recipeRepository, times(1)).findExistingIds(anyCollection());
+
+        when(recipeRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+        recipeIdValidator.onRecipeCatalogChanged(RecipeCatalogChangedEvent.removed(10L));
+
+        assertNull(parser.parse("[{\"recipeId\": 10}]").get(0).recipeId());
+    }
+
+    @Test
+    void parseObjectReadsOneStreamedObject() {
+        assertEquals(20L, parser.parseObject("{\"recipeId\": 20, \"title\": \"Sopa\"}").recipeId());
+        assertNull(parser.parseObject("{\"recipeId\": 30}").recipeId());
+        assertNull(parser.parseObject("[1, 2]"));
+        assertNull(parser.parseObject("{\"title\": "));
+    }
+
+    private static List<String> titles(List<RecommendationResponse> recommendations) {
+        return recommendations.stream().map(RecommendationResponse::title).toList();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.recipesapp.service.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import com.example.recipesapp.dto.RecommendationResponse;
+import com.example.recipesapp.exception.TooManyRequestsException;
+import com.example.recipesapp.service.job.RecommendationJobExecutor;
+import com.example.recipesapp.service.ratelimit.RecommendationRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class RecommendationStreamServiceTest {
+
+    private static final PantrySnapshot PANTRY = new PantrySnapshot(1L, List.of(), "arroz");
+
+    @Test
+    void clientDisconnectStopsTheEventsButNotTheGeneration() throws Exception {
+        StreamingEngine engine = new StreamingEngine();
+        RecommendationStreamService service = new RecommendationStreamService(engine, executor(8, 64), limiter(1), Duration.ofSeconds(10));
+        DisconnectingClient client = new DisconnectingClient();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(service)).addFilters(client).build();
+
+        mockMvc.perform(get("/stream")).andExpect(request().asyncStarted());
+
+        assertTrue(engine.finished.await(5, TimeUnit.SECONDS));
+        // El motor entrego todo sin que el consumidor le lanzara nada: la desconexion nunca llega a la IA
+        // (ni al circuit breaker ni al router) y el resultado se completa para la cache y los agrupados.
+        assertEquals(3, engine.delivered.get());
+        assertNull(engine.consumerFailure);
+        String written = client.written();
+        assertEquals(1, written.split("event:recommendation", -1).length - 1);
+        assertFalse(written.contains("event:done"));
+        assertFalse(written.contains("event:error"));
+    }
+
+    @Test
+    void streamRejectedByTheExecutorGivesTheTokenBack() throws Exception {
+        RecommendationJobExecutor executor = executor(1, 0);
+        RecommendationRateLimiter limiter = limiter(1);
+        RecommendationStreamService service = new RecommendationStreamService(new StreamingEngine(), executor, limiter, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> awaitQuietly(release));
+
+        try {
+            assertThrows(TooManyRequestsException.class, () -> service.openStream(PANTRY));
+            // La cuota del usuario es 1: solo se puede volver a cobrar si el 429 la devolvio.
+            assertDoesNotThrow(() -> limiter.acquire(PANTRY.userId()));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void cachedStreamDoesNotSpendTheUserQuota() {
+        StreamingEngine engine = new StreamingEngine();
+        engine.cached = Optional.of(List.of(recipe(1)));
+        RecommendationRateLimiter limiter = limiter(1);
+        RecommendationJobExecutor executor = executor(8, 64);
+        RecommendationStreamService service = new RecommendationStreamService(engine, executor, limiter, Duration.ofSeconds(10));
+
+        try {
+            service.openStream(PANTRY);
+            service.openStream(PANTRY);
+        } finally {
+            executor.shutdown();
+        }
+        assertDoesNotThrow(() -> limiter.acquire(PANTRY.userId()));
+    }
+
+    private static RecommendationJobExecutor executor(int maxConcurrent, int queueCapacity) {
+        return new RecommendationJobExecutor(new SimpleMeterRegistry(), maxConcurrent, queueCapacity, Duration.ofSeconds(5), true);
+    }
+
+    private static RecommendationRateLimiter limiter(int userCapacity) {
+        return new RecommendationRateLimiter(
+            true, userCapacity, Duration.ofHours(1), 50, Duration.ofHours(1), 5, Duration.ofHours(1), Duration.ofMinutes(10), 1_000
+        );
+    }
+
+    private static RecommendationResponse recipe(long recipeId) {
+        return new RecommendationResponse(recipeId, "Receta " + recipeId, null, null, null, null, null, 1.0, List.of(), List.of());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @RestController
+    static class StreamController {
+
+        private final RecommendationStreamService service;
+
+        StreamController(RecommendationStreamService service) {
+            this.service = service;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream() {
+            return service.openStream(PANTRY);
+        }
+    }
+
+    /**
+     * Motor que entrega tres recetas y registra si el consumidor le lanzo algo.
+     */
+    private static final class StreamingEngine implements RecommendationEngine {
+
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicInteger delivered = new AtomicInteger();
+        private volatile RuntimeException consumerFailure;
+        private Optional<List<RecommendationResponse>> cached = Optional.empty();
+
+        @Override
+        public List<RecommendationResponse> recommend(PantrySnapshot pantry) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<RecommendationResponse> recommendStreaming(
+            PantrySnapshot pantry,
+            Consumer<RecommendationResponse> onRecommendation
+        ) {
+            List<RecommendationResponse> recommendations = List.of(recipe(1), recipe(2), recipe(3));
+            try {
+                for (RecommendationResponse recommendation : recommendations) {
+                    onRecommendation.accept(recommendation);
+                    delivered.incrementAndGet();
+                }
+            } catch (RuntimeException ex) {
+                consumerFailure = ex;
+                throw ex;
+            } finally {
+                finished.countDown();
+            }
+            return recommendations;
+        }
+
+        @Override
+        public Optional<List<RecommendationResponse>> cached(PantrySnapshot pantry) {
+            return cached;
+        }
+    }
+
+    /**
+     * Cliente que cierra la conexion despues de recibir el primer evento completo: las escrituras
+     * siguientes fallan con IOException, como un socket cerrado en Tomcat.
+     */
+    private static final class DisconnectingClient implements Filter {
+
+        private final StringBuffer written = new StringBuffer();
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+            ServletOutputStream body = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    int firstEvent = written.indexOf("event:recommendation");
+                    if (firstEvent >= 0 && written.indexOf("\n\n", firstEvent) >= 0) {
+                        throw new IOException("Broken pipe");
+                    }
+                    written.append((char) b);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+            chain.doFilter(request, new HttpServletResponseWrapper((HttpServletResponse) response) {
+                @Override
+                public ServletOutputStream getOutputStream() {
+                    return body;
+                }
+            });
+        }
+
+        String written() {
+            return written.toString();
+        }
+    }
+}
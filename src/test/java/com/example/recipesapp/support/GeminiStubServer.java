@@ -0,0 +1,216 @@
+package com.example.recipesapp.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP local que imita los endpoints :generateContent y :streamGenerateContent (alt=sse) de
+ * Gemini para probar el cliente sin red.
+ * Las respuestas programadas se consumen en orden; cuando se agotan se repite la ultima, o bien,
+ * si se configuro un LoadProfile, se genera una respuesta con su latencia, tasa de error y tamano.
+ */
+public class GeminiStubServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<Integer, String> PAYLOADS = new ConcurrentHashMap<>();
+    private static final int STREAM_CHUNK = 16;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Queue<StubResponse> scripted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile StubResponse fallback = new StubResponse(200, "[]", Duration.ZERO);
+    private volatile LoadProfile loadProfile;
+
+    static {
+        // Sin TCP_NODELAY, cabeceras y cuerpo viajan en segmentos separados y el ACK diferido del
+        // cliente suma ~40 ms a cada respuesta, lo que falsea los percentiles de las pruebas de carga.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private GeminiStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static GeminiStubServer start() throws IOException {
+        return new GeminiStubServer();
+    }
+
+    public String generateContentUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/models/stub:generateContent";
+    }
+
+    /**
+     * Programa la siguiente respuesta; con estado 200 el texto se envuelve como candidato de Gemini.
+     */
+    public GeminiStubServer respond(int status, String text) {
+        return respondAfter(Duration.ZERO, status, text);
+    }
+
+    public GeminiStubServer respondAfter(Duration delay, int status, String text) {
+        StubResponse response = new StubResponse(status, text, delay);
+        scripted.add(response);
+        fallback = response;
+        return this;
+    }
+
+    /**
+     * Tras agotar las respuestas programadas, cada peticion sigue este perfil.
+     */
+    public GeminiStubServer simulate(LoadProfile profile) {
+        this.loadProfile = profile;
+        return this;
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        StubResponse response = scripted.poll();
+        if (response == null) {
+            LoadProfile profile = loadProfile;
+            response = profile != null ? profile.next() : fallback;
+        }
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (!response.delay().isZero()) {
+                Thread.sleep(response.delay());
+            }
+            boolean stream = exchange.getRequestURI().getPath().endsWith(":streamGenerateContent");
+            byte[] body;
+            if (response.status() != 200) {
+                body = ("{\"error\":{\"code\":" + response.status() + "}}").getBytes(StandardCharsets.UTF_8);
+            } else if (stream) {
+                body = serverSentEvents(response.text());
+            } else {
+                body = OBJECT_MAPPER.writeValueAsBytes(candidate(response.text()));
+            }
+            exchange.getResponseHeaders().set("Content-Type", stream && response.status() == 200 ? "text/event-stream" : "application/json");
+            exchange.sendResponseHeaders(response.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            // El cliente corto la conexion (p. ej. por timeout de lectura).
+        }
+    }
+
+    /**
+     * Respuesta de :streamGenerateContent con alt=sse: el texto partido en eventos "data:" de STREAM_CHUNK caracteres.
+     */
+    private static byte[] serverSentEvents(String text) throws IOException {
+        StringBuilder events = new StringBuilder();
+        for (int start = 0; start < text.length(); start += STREAM_CHUNK) {
+            String piece = text.substring(start, Math.min(text.length(), start + STREAM_CHUNK));
+            events.append("data: ").append(OBJECT_MAPPER.writeValueAsString(candidate(piece))).append("\n\n");
+        }
+        return events.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> candidate(String text) {
+        return Map.of("candidates", List.of(Map.of("content", Map.of("parts", List.of(Map.of("text", text))))));
+    }
+
+    private record StubResponse(int status, String text, Duration delay) {
+    }
+
+    /**
+     * Perfil de carga del stub. La latencia sigue una log-normal con la mediana y el p99 indicados
+     * (la forma habitual de la latencia de un LLM: la mayoria cerca de la mediana y una cola larga);
+     * errorRate de las peticiones responde errorStatus; las exitosas devuelven tres recetas de unos
+     * payloadBytes bytes en total.
+     */
+    public record LoadProfile(Duration medianLatency, Duration p99Latency, double errorRate, int errorStatus, int payloadBytes) {
+
+        // Cuantil 0.99 de la normal estandar.
+        private static final double Z_99 = 2.326;
+
+        public static LoadProfile fixed(Duration latency, int payloadBytes) {
+            return new LoadProfile(latency, latency, 0.0, 503, payloadBytes);
+        }
+
+        private StubResponse next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < errorRate) {
+                return new StubResponse(errorStatus, "", sampleLatency(random));
+            }
+            return new StubResponse(200, PAYLOADS.computeIfAbsent(payloadBytes, GeminiStubServer::recipes), sampleLatency(random));
+        }
+
+        private Duration sampleLatency(ThreadLocalRandom random) {
+            long medianNanos = medianLatency.toNanos();
+            if (medianNanos <= 0) {
+                return Duration.ZERO;
+            }
+            double sigma = Math.log((double) Math.max(p99Latency.toNanos(), medianNanos) / medianNanos) / Z_99;
+            return Duration.ofNanos((long) (medianNanos * Math.exp(sigma * random.nextGaussian())));
+        }
+    }
+
+    /**
+     * Tres recetas en el formato de la salida estructurada; el tamano se alcanza alargando las instrucciones.
+     */
+    static String recipes(int targetBytes) {
+        String step = "Sofrie la cebolla y el ajo en aceite de oliva a fuego medio hasta que esten dorados. ";
+        int instructionsLength = Math.max(step.length(), (targetBytes - 3 * 700) / 3);
+        StringBuilder instructions = new StringBuilder(instructionsLength + step.length());
+        for (int number = 1; instructions.length() < instructionsLength; number++) {
+            instructions.append("Paso ").append(number).append(": ").append(step);
+        }
+        List<Map<String, Object>> recipes = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Map<String, Object> recipe = new LinkedHashMap<>();
+            recipe.put("recipeId", null);
+            recipe.put("title", "Receta de prueba de carga " + i);
+            recipe.put("description", "Receta generada por el stub de Gemini para pruebas de carga.");
+            recipe.put("instructions", instructions.toString());
+            recipe.put("prepTimeMinutes", 15 + 5 * i);
+            recipe.put("difficulty", "EASY");
+            recipe.put("imageUrl", null);
+            recipe.put("matchScore", 0.9 - 0.1 * i);
+            recipe.put("missingIngredients", List.of("sal"));
+            recipe.put("ingredients", List.of(
+                Map.of("name", "arroz", "quantity", 200, "unit", "g"),
+                Map.of("name", "cebolla", "quantity", 1, "unit", "unidad"),
+                Map.of("name", "ajo", "quantity", 2, "unit", "diente")
+            ));
+            recipes.add(recipe);
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(recipes);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.recipesapp.support;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acumula latencias por operacion durante una prueba de carga y resume throughput y percentiles.
+ * Registrar es seguro desde varios hilos; el resumen se calcula al final, ordenando las muestras.
+ */
+public class LoadReport {
+
+    private final String title;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final long startedAt = System.nanoTime();
+
+    public LoadReport(String title) {
+        this.title = title;
+    }
+
+    public void record(String operation, long elapsedNanos, boolean success) {
+        Operation stats = operations.computeIfAbsent(operation, name -> new Operation());
+        stats.latencies.add(elapsedNanos);
+        if (!success) {
+            stats.errors.incrementAndGet();
+        }
+    }
+
+    public int count(String operation) {
+        Operation stats = operations.get(operation);
+        return stats != null ? stats.latencies.size() : 0;
+    }
+
+    public int errors(String operation) {
+        Operation stats = operations.get(operation);
+        return stats != null ? stats.errors.get() : 0;
+    }
+
+    public long percentileMillis(String operation, double percentile) {
+        Operation stats = operations.get(operation);
+        return stats != null ? Duration.ofNanos(percentile(stats.sorted(), percentile)).toMillis() : 0;
+    }
+
+    /**
+     * Tabla con una fila por operacion; el throughput se calcula sobre la duracion total de la prueba.
+     */
+    public String summary() {
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+        StringBuilder text = new StringBuilder()
+            .append("== ").append(title).append(String.format(Locale.ROOT, " (%.1f s) ==%n", elapsedSeconds))
+            .append(String.format(Locale.ROOT, "%-24s %7s %7s %9s %8s %8s %8s %8s%n",
+                "operacion", "total", "errores", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        operations.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> {
+                long[] sorted = entry.getValue().sorted();
+                text.append(String.format(Locale.ROOT, "%-24s %7d %7d %9.1f %8d %8d %8d %8d%n",
+                    entry.getKey(),
+                    sorted.length,
+                    entry.getValue().errors.get(),
+                    sorted.length / elapsedSeconds,
+                    toMillis(percentile(sorted, 0.50)),
+                    toMillis(percentile(sorted, 0.95)),
+                    toMillis(percentile(sorted, 0.99)),
+                    toMillis(sorted.length > 0 ? sorted[sorted.length - 1] : 0)));
+            });
+        return text.toString();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static long toMillis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
+    }
+
+    private static final class Operation {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private long[] sorted() {
+            long[] values = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(values);
+            return values;
+        }
+    }
+}